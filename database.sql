@@ -25,6 +25,34 @@ describe users;
 
 select * from users;
 
+# session login per device, satu user bisa punya banyak session. yang di simpan hanya SHA-256 dari token (hex)
+# index expired_at untuk SessionSweeper, supaya hapus session expired cukup range scan (bukan full scan)
+# ON DELETE CASCADE supaya hapus user ikut menghapus session-nya
+CREATE TABLE sessions
+(
+    token_hash CHAR(64)     NOT NULL,
+    username   VARCHAR(100) NOT NULL,
+    created_at BIGINT       NOT NULL,
+    expired_at BIGINT       NOT NULL,
+    PRIMARY KEY (token_hash),
+    INDEX idx_sessions_username (username),
+    INDEX idx_sessions_expired_at (expired_at),
+    FOREIGN KEY fk_users_sessions (username) REFERENCES users (username) ON DELETE CASCADE
+) ENGINE InnoDB;
+
+describe sessions;
+
+# pindahkan session lama dari users.token, lalu column token di users tidak di pakai lagi
+INSERT INTO sessions (token_hash, username, created_at, expired_at)
+SELECT SHA2(token, 256), username, UNIX_TIMESTAMP() * 1000, token_expired_at
+FROM users
+WHERE token IS NOT NULL
+  AND token_expired_at IS NOT NULL;
+
+ALTER TABLE users
+    DROP COLUMN token,
+    DROP COLUMN token_expired_at;
+
 
 # table contacts berlasi dengan users dengan kardinalitas 1 users banyak contants. reference username
 CREATE TABLE contacts
@@ -41,6 +69,48 @@ CREATE TABLE contacts
 
 describe contacts;
 
+# index untuk cursor mode GET /api/contacts?after=... (ORDER BY first_name, id per user)
+# dengan index ini WHERE username = ? AND (first_name, id) > (?, ?) langsung loncat ke posisi cursor, tidak scan dari awal
+ALTER TABLE contacts
+    ADD INDEX idx_contacts_username_first_name_id (username, first_name, id);
+
+# index untuk GET /api/contacts?sort=lastName / sort=email (lihat ContactSort), ORDER BY <kolom>, id di baca dari index tanpa filesort
+# sort desc memakai index yang sama (backward index scan). tanpa sort urut id, sudah tercakup index foreign key username (username, id)
+ALTER TABLE contacts
+    ADD INDEX idx_contacts_username_last_name_id (username, last_name, id),
+    ADD INDEX idx_contacts_username_email_id (username, email, id);
+
+# phone hanya angka (phone_digits) dan angka yang di balik (phone_reversed), di isi aplikasi setiap insert / update contact
+# filter phone di GET /api/contacts memakai phone_digits, filter phoneSuffix memakai phone_reversed LIKE '...%'
+# dengan index (username, phone_reversed) "phone berakhiran 2222" jadi range scan, bukan scan semua contact user
+ALTER TABLE contacts
+    ADD COLUMN phone_digits   VARCHAR(100) AFTER phone,
+    ADD COLUMN phone_reversed VARCHAR(100) AFTER phone_digits,
+    ADD INDEX idx_contacts_username_phone_reversed (username, phone_reversed);
+
+# isi kolom baru untuk contact yang sudah ada
+UPDATE contacts
+SET phone_digits   = REGEXP_REPLACE(phone, '[^0-9]', ''),
+    phone_reversed = REVERSE(REGEXP_REPLACE(phone, '[^0-9]', ''))
+WHERE phone IS NOT NULL;
+
+# domain email huruf kecil, di isi aplikasi setiap insert / update contact. filter domain di GET /api/contacts pakai index ini (exact match)
+# contact lama di isi bertahap oleh EmailDomainBackfill (per batch id), bukan satu UPDATE besar yang lock seluruh tabel
+ALTER TABLE contacts
+    ADD COLUMN email_domain VARCHAR(100) AFTER email,
+    ADD INDEX idx_contacts_username_email_domain (username, email_domain);
+
+# FULLTEXT index untuk app.contact-search.strategy=fulltext, parser ngram supaya bisa cari potongan kata (bukan hanya kata utuh)
+# kolom di MATCH(...) harus sama persis dengan kolom index, jadi satu index per filter: name (first_name, last_name), email, phone_digits
+# ngram_token_size (default 2) di set di my.cnf dan harus sama dengan app.contact-search.ngram-token-size
+# matikan stopword (innodb_ft_enable_stopword=OFF sebelum index di buat), karena ngram yang mengandung stopword tidak di index
+# catatan: FULLTEXT index tidak bisa di gabung dengan index username, MySQL ambil semua row yang cocok lalu filter username
+SET GLOBAL innodb_ft_enable_stopword = OFF;
+ALTER TABLE contacts
+    ADD FULLTEXT INDEX ft_contacts_name (first_name, last_name) WITH PARSER ngram,
+    ADD FULLTEXT INDEX ft_contacts_email (email) WITH PARSER ngram,
+    ADD FULLTEXT INDEX ft_contacts_phone (phone_digits) WITH PARSER ngram;
+
 select * from contacts;
 
 
@@ -59,15 +129,71 @@ CREATE TABLE addresses
 
 describe addresses;
 
+# versi perubahan untuk GET /api/contacts/changes (delta sync). sync_versions.version di naikkan setiap transaksi yang mengubah
+# contact / address user (lihat SyncVersions), row yang di ubah menyimpan versi itu. client cukup baca row dengan versi > versi terakhirnya
+# index (username, version, id) supaya perubahan per user di baca berurutan dari index, sebanding dengan jumlah perubahan
+# row lama tetap version 0, ikut terkirim di sync pertama (tanpa since)
+# counter di tabel sendiri, bukan kolom di users: lock counter di pegang sampai commit dan tidak boleh menahan update profile / login
+CREATE TABLE sync_versions
+(
+    username VARCHAR(100) NOT NULL,
+    version  BIGINT       NOT NULL,
+    PRIMARY KEY (username)
+) ENGINE InnoDB;
+
+# user lama di isi sekali, supaya insert pertama (on duplicate key) tidak terjadi bersamaan saat traffic
+INSERT INTO sync_versions (username, version)
+SELECT username, 0 FROM users;
+
+ALTER TABLE contacts
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0,
+    ADD INDEX idx_contacts_username_version_id (username, version, id);
+
+# addresses butuh username sendiri supaya perubahan address per user tidak perlu join ke contacts
+ALTER TABLE addresses
+    ADD COLUMN username VARCHAR(100) AFTER contact_id,
+    ADD COLUMN version  BIGINT NOT NULL DEFAULT 0;
+
+UPDATE addresses a JOIN contacts c ON c.id = a.contact_id
+SET a.username = c.username;
+
+ALTER TABLE addresses
+    MODIFY COLUMN username VARCHAR(100) NOT NULL,
+    ADD INDEX idx_addresses_username_version_id (username, version, id);
+
+# contact / address yang di hapus, id sama dengan id row yang di hapus. tanpa foreign key, row asli sudah tidak ada
+CREATE TABLE tombstones
+(
+    id         VARCHAR(100) NOT NULL,
+    username   VARCHAR(100) NOT NULL,
+    version    BIGINT       NOT NULL,
+    type       VARCHAR(20)  NOT NULL,
+    contact_id VARCHAR(100),
+    deleted_at BIGINT       NOT NULL,
+    PRIMARY KEY (id),
+    INDEX idx_tombstones_username_version_id (username, version, id)
+) ENGINE InnoDB;
+
+describe tombstones;
+
+drop table sessions;
 drop table users;
 drop table contacts;
 drop table addresses;
+drop table tombstones;
+drop table sync_versions;
 
 select * from users;
+select * from sessions;
 select * from contacts;
 select * from addresses;
+select * from tombstones;
+select * from sync_versions;
 show warnings;
 
+delete from sessions;
 delete from users;
 delete from contacts;
-delete from addresses;
\ No newline at end of file
+delete from addresses;
+delete from tombstones;
+delete from sync_versions;
\ No newline at end of file
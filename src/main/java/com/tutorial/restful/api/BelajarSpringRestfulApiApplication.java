@@ -2,7 +2,9 @@ package com.tutorial.restful.api;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
+@EnableScheduling // untuk job berkala (@Scheduled)
 @SpringBootApplication
 public class BelajarSpringRestfulApiApplication {
 
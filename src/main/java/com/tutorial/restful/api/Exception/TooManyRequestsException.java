@@ -0,0 +1,17 @@
+package com.tutorial.restful.api.Exception;
+
+public class TooManyRequestsException extends RuntimeException {
+
+    // request di tolak karena melebihi batas (rate limit / back-off), di handle ErrorController jadi 429 + Retry-After
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -5,13 +5,17 @@ import com.tutorial.restful.api.dto.TokenResponse;
 import com.tutorial.restful.api.dto.WebResponse;
 import com.tutorial.restful.api.entity.User;
 import com.tutorial.restful.api.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 public class AuthController {
 
@@ -23,20 +27,33 @@ public class AuthController {
             consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public WebResponse<TokenResponse> login(@RequestBody LoginUserRequest request) {
-
-        TokenResponse tokenResponse = authService.login(request); // TokenResponse login(LoginUserRequest request)
+    public CompletableFuture<WebResponse<TokenResponse>> login(@RequestBody LoginUserRequest request, HttpServletRequest servletRequest) {
 
-        return WebResponse.<TokenResponse>builder().data(tokenResponse).build(); // return {"data":{"token":"2dd32768-9bd9-45ed-a60e-c5eb0e6521bd","expiredAt":1688437213465}}
+        // CompletableFuture<TokenResponse> login(LoginUserRequest request, String remoteAddress)
+        // return CompletableFuture supaya thread Tomcat langsung di lepas selama BCrypt berjalan (async request)
+        return authService.login(request, servletRequest.getRemoteAddr())
+                .thenApply(tokenResponse -> WebResponse.<TokenResponse>builder().data(tokenResponse).build()); // return {"data":{"token":"2dd32768-9bd9-45ed-a60e-c5eb0e6521bd","expiredAt":1688437213465}}
     }
 
     @DeleteMapping(
             path = "/api/auth/logout",
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public WebResponse<String> logout(User user){
+    public WebResponse<String> logout(User user, @RequestHeader(name = "X-API-TOKEN") String token){
+
+        authService.logout(user, token); // void logout(User user, String token)
+
+        return WebResponse.<String>builder().data("OK").build(); // return {"data":"OK","errors":null}
+
+    }
+
+    @DeleteMapping(
+            path = "/api/auth/logout/all",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public WebResponse<String> logoutAll(User user, @RequestHeader(name = "X-API-TOKEN") String token){
 
-        authService.logout(user); // void logout(User user)
+        authService.logoutAll(user, token); // void logoutAll(User user, String token)
 
         return WebResponse.<String>builder().data("OK").build(); // return {"data":"OK","errors":null}
 
@@ -2,13 +2,21 @@ package com.tutorial.restful.api.controller;
 
 import com.tutorial.restful.api.dto.*;
 import com.tutorial.restful.api.entity.User;
+import com.tutorial.restful.api.service.ContactCursor;
+import com.tutorial.restful.api.service.ContactSort;
 import com.tutorial.restful.api.service.ContactService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Objects;
 
 @RestController
 public class ContactController {
@@ -29,6 +37,20 @@ public class ContactController {
 
     }
 
+    // banyak contact sekaligus (onboarding), response berisi hasil per item dengan urutan yang sama dengan request
+    @PostMapping(
+            path = "/api/contacts/bulk",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public WebResponse<List<BulkContactResponse>> createBulk(User user, @RequestBody List<CreateContactRequest> requests) {
+
+        List<BulkContactResponse> results = contactService.createBulk(user, requests);
+
+        return WebResponse.<List<BulkContactResponse>>builder().data(results).build(); // return {"data":[{"index":0,"id":"...","errors":null},{"index":1,"id":null,"errors":"firstName: must not be blank"}],"errors":null}
+
+    }
+
     @GetMapping(
             path = "/api/contacts/{contactId}",
             consumes = MediaType.APPLICATION_JSON_VALUE
@@ -67,6 +89,63 @@ public class ContactController {
         return WebResponse.<String>builder().data("OK").build(); // return
     }
 
+    // export semua contact user beserta address nya, NDJSON (satu baris JSON per contact) di tulis langsung ke response
+    // tidak lewat WebResponse karena response nya tidak pernah di tampung utuh di memory
+    @GetMapping(
+            path = "/api/contacts/export",
+            produces = MediaType.APPLICATION_NDJSON_VALUE
+    )
+    public void export(User user, HttpServletResponse response) throws IOException {
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+        contactService.export(user, response.getOutputStream()); // void export(User user, OutputStream output)
+    }
+
+    // perubahan contact / address setelah since (next dari response sebelumnya), tanpa since artinya semua dari awal
+    // client cukup menyimpan next lalu polling, jumlah data yang di kirim sebanding dengan jumlah perubahan bukan jumlah contact
+    @GetMapping(
+            path = "/api/contacts/changes",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public WebResponse<ContactChangesResponse> changes(User user,
+                                                       @RequestParam(name = "since", required = false) String since,
+                                                       @RequestParam(name = "size", required = false, defaultValue = "100") Integer size) {
+
+        ContactChangesResponse response = contactService.changes(user, since, size);
+
+        return WebResponse.<ContactChangesResponse>builder().data(response).build(); // return {"data":{"contacts":[...],"addresses":[...],"deleted":[...],"next":"...","hasMore":false},"errors":null}
+    }
+
+    // import contact dari file CSV (header firstName,lastName,email,phone), body di baca sebagai stream per chunk
+    // baris yang tidak valid di laporkan di errors tanpa menggagalkan baris lain
+    @PostMapping(
+            path = "/api/contacts/import",
+            consumes = "text/csv",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public WebResponse<ImportContactResponse> importCsv(User user, HttpServletRequest request) throws IOException {
+
+        ImportContactResponse response = contactService.importCsv(user, request.getInputStream());
+
+        return WebResponse.<ImportContactResponse>builder().data(response).build(); // return {"data":{"imported":998,"failed":2,"errors":[{"line":5,"errors":"firstName: must not be blank"}]},"errors":null}
+    }
+
+    // hapus banyak contact (beserta address nya) berdasarkan ids atau filter search, response berisi jumlah row yang terhapus
+    // POST bukan DELETE karena butuh request body
+    @PostMapping(
+            path = "/api/contacts/bulk-delete",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public WebResponse<BulkDeleteContactResponse> deleteBulk(User user, @RequestBody BulkDeleteContactRequest request) {
+
+        BulkDeleteContactResponse response = contactService.deleteBulk(user, request);
+
+        return WebResponse.<BulkDeleteContactResponse>builder().data(response).build(); // return {"data":{"contacts":120,"addresses":37},"errors":null}
+    }
+
     @GetMapping(
             path = "/api/contacts",
             produces = MediaType.APPLICATION_JSON_VALUE
@@ -74,17 +153,57 @@ public class ContactController {
     public WebResponse<List<ContactResponse>> search(User user,
                                                      @RequestParam(name = "name", required = false) String name,
                                                      @RequestParam(name = "email", required = false) String email,
+                                                     @RequestParam(name = "domain", required = false) String domain,
                                                      @RequestParam(name = "phone", required = false) String phone,
+                                                     @RequestParam(name = "phoneSuffix", required = false) String phoneSuffix,
                                                      @RequestParam(name = "page", required = false, defaultValue = "0") Integer page,
-                                                     @RequestParam(name = "size", required = false, defaultValue = "10") Integer size
+                                                     @RequestParam(name = "size", required = false, defaultValue = "10") Integer size,
+                                                     @RequestParam(name = "sort", required = false) String sort,
+                                                     @RequestParam(name = "after", required = false) String after,
+                                                     @RequestParam(name = "count", required = false, defaultValue = "true") Boolean count
     ) {
 
         SearchContactRequest request = new SearchContactRequest();
         request.setName(name);
         request.setEmail(email);
+        request.setDomain(domain);
         request.setPhone(phone);
+        request.setPhoneSuffix(phoneSuffix);
         request.setPage(page);
         request.setSize(size);
+        request.setSort(sort);
+        request.setAfter(after);
+        request.setCount(count);
+
+        // cursor mode (keyset pagination), di pakai jika query param after ada walaupun kosong
+        if (Objects.nonNull(after)) {
+            Slice<ContactResponse> contactResponses = contactService.searchAfter(user, request);
+
+            return WebResponse.<List<ContactResponse>>builder()
+                    .data(contactResponses.getContent())
+                    .paging(PagingResponse.builder()
+                            .size(contactResponses.getSize())
+                            .hasNext(contactResponses.hasNext())
+                            .nextCursor(contactResponses.hasNext()
+                                    ? ContactCursor.after(ContactSort.forCursor(sort), contactResponses.getContent().get(contactResponses.getNumberOfElements() - 1)).encode()
+                                    : null)
+                            .build())
+                    .build(); // return
+        }
+
+        // slice mode, tanpa SELECT COUNT(*) jadi totalPage tidak ada di response
+        if (!count) {
+            Slice<ContactResponse> contactResponses = contactService.searchSlice(user, request);
+
+            return WebResponse.<List<ContactResponse>>builder()
+                    .data(contactResponses.getContent())
+                    .paging(PagingResponse.builder()
+                            .currentPage(contactResponses.getNumber())
+                            .size(contactResponses.getSize())
+                            .hasNext(contactResponses.hasNext())
+                            .build())
+                    .build(); // return
+        }
 
         Page<ContactResponse> contactResponses = contactService.search(user, request);
 
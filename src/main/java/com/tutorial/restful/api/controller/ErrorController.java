@@ -1,14 +1,18 @@
 package com.tutorial.restful.api.controller;
 
 import com.tutorial.restful.api.Exception.ApiException;
+import com.tutorial.restful.api.Exception.TooManyRequestsException;
 import com.tutorial.restful.api.dto.WebResponse;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @RestControllerAdvice
 public class ErrorController {
 
@@ -32,4 +36,20 @@ public class ErrorController {
                 .body(WebResponse.<String>builder().errors(exception.getMessage()).build());
     }
 
+    // thread pool yang terbatas (contoh: PasswordHasher) sedang penuh. client di minta coba lagi, bukan di antrikan tanpa batas
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<WebResponse<String>> rejectedExecutionException(RejectedExecutionException exception){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(WebResponse.<String>builder().errors("Server is busy, please try again later").build());
+    }
+
+    // terlalu banyak percobaan (contoh: LoginThrottle). Retry-After berisi detik sampai boleh mencoba lagi
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<WebResponse<String>> tooManyRequestsException(TooManyRequestsException exception){
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+                .body(WebResponse.<String>builder().errors(exception.getMessage()).build());
+    }
+
 }
@@ -10,6 +10,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 public class UserController {
 
@@ -21,11 +23,11 @@ public class UserController {
             consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public WebResponse<String> userRegister(@RequestBody RegisterUserRequest request) {
-
-        userService.register(request); // void register(RegisterUserRequest request)
+    public CompletableFuture<WebResponse<String>> userRegister(@RequestBody RegisterUserRequest request) {
 
-        return WebResponse.<String>builder().data("OK").build(); // return {"data" : "Oke","errors":null}
+        // CompletableFuture<Void> register(RegisterUserRequest request)
+        return userService.register(request)
+                .thenApply(unused -> WebResponse.<String>builder().data("OK").build()); // return {"data" : "Oke","errors":null}
 
     }
 
@@ -45,11 +47,11 @@ public class UserController {
             consumes = MediaType.APPLICATION_JSON_VALUE,
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    public WebResponse<UserResponse> updateData(User user, @RequestBody UpdateUserRequest request){
-
-        UserResponse userResponse = userService.update(user, request); // UserResponse update(User user, UpdateUserRequest request)
+    public CompletableFuture<WebResponse<UserResponse>> updateData(User user, @RequestBody UpdateUserRequest request){
 
-        return WebResponse.<UserResponse>builder().data(userResponse).build(); // return {"data":{"username":"Test","name":"Budhi"},"errors":null}
+        // CompletableFuture<UserResponse> update(User user, UpdateUserRequest request)
+        return userService.update(user, request)
+                .thenApply(userResponse -> WebResponse.<UserResponse>builder().data(userResponse).build()); // return {"data":{"username":"Test","name":"Budhi"},"errors":null}
 
     }
 
@@ -0,0 +1,28 @@
+package com.tutorial.restful.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AddressChangeResponse {
+
+    private String id;
+
+    private String contactId;
+
+    private String street;
+
+    private String city;
+
+    private String province;
+
+    private String country;
+
+    private String postalCode;
+
+}
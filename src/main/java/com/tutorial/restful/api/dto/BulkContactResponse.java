@@ -0,0 +1,25 @@
+package com.tutorial.restful.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkContactResponse {
+
+    // hasil per item POST /api/contacts/bulk, urutan sama dengan request
+
+    // posisi item di array request, mulai dari 0
+    private Integer index;
+
+    // id contact yang di buat, null jika gagal
+    private String id;
+
+    // pesan error jika gagal (validasi / simpan DB), null jika berhasil
+    private String errors;
+
+}
@@ -0,0 +1,30 @@
+package com.tutorial.restful.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkDeleteContactRequest {
+
+    // DTO untuk POST /api/contacts/bulk-delete. isi ids, atau filter search di bawah (sama dengan GET /api/contacts), tidak boleh keduanya
+
+    private List<String> ids;
+
+    private String name;
+
+    private String email;
+
+    private String domain;
+
+    private String phone;
+
+    private String phoneSuffix;
+
+}
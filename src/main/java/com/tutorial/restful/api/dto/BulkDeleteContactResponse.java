@@ -0,0 +1,20 @@
+package com.tutorial.restful.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkDeleteContactResponse {
+
+    // jumlah row yang terhapus
+
+    private Long contacts;
+
+    private Long addresses;
+
+}
@@ -0,0 +1,33 @@
+package com.tutorial.restful.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ContactChangesResponse {
+
+    // hasil GET /api/contacts/changes, perubahan setelah since sampai maksimal size row (contacts + addresses + deleted)
+
+    // contact yang di buat / di ubah, isi lengkap
+    private List<ContactResponse> contacts;
+
+    // address yang di buat / di ubah, isi lengkap
+    private List<AddressChangeResponse> addresses;
+
+    // contact / address yang di hapus
+    private List<DeletedResponse> deleted;
+
+    // di kirim sebagai since di request berikutnya, selalu ada walaupun tidak ada perubahan
+    private String next;
+
+    // true artinya masih ada perubahan setelah next, langsung request lagi tanpa menunggu
+    private Boolean hasMore;
+
+}
@@ -0,0 +1,22 @@
+package com.tutorial.restful.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DeletedResponse {
+
+    // "contact" atau "address"
+    private String type;
+
+    private String id;
+
+    // contact pemilik address, null untuk type contact
+    private String contactId;
+
+}
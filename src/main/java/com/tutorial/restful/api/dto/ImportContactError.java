@@ -0,0 +1,20 @@
+package com.tutorial.restful.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ImportContactError {
+
+    // nomor baris di file CSV tempat record di mulai, header = baris 1
+    private Long line;
+
+    // pesan error baris ini
+    private String errors;
+
+}
@@ -0,0 +1,27 @@
+package com.tutorial.restful.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ImportContactResponse {
+
+    // hasil POST /api/contacts/import
+
+    // jumlah contact yang tersimpan
+    private Long imported;
+
+    // jumlah baris yang gagal (validasi / simpan DB)
+    private Long failed;
+
+    // detail baris yang gagal, di batasi app.contact-import.max-errors (failed tetap menghitung semua)
+    private List<ImportContactError> errors;
+
+}
@@ -1,5 +1,6 @@
 package com.tutorial.restful.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -9,6 +10,7 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@JsonInclude(JsonInclude.Include.NON_NULL) // field yang tidak di pakai mode paging tertentu tidak ikut di response
 public class PagingResponse {
 
     private Integer currentPage;
@@ -17,4 +19,10 @@ public class PagingResponse {
 
     private Integer size;
 
+    // untuk mode tanpa count (count=false dan cursor mode), true jika masih ada halaman berikutnya
+    private Boolean hasNext;
+
+    // hanya untuk cursor mode, di kirim sebagai query param after untuk halaman berikutnya. null jika sudah halaman terakhir
+    private String nextCursor;
+
 }
@@ -17,10 +17,25 @@ public class SearchContactRequest {
 
     private String email;
 
+    // domain email persis (misal "example.com"), bukan LIKE
+    private String domain;
+
     private String phone;
 
+    // phone berakhiran angka ini (misal caller ID), hanya angka yang di pakai
+    private String phoneSuffix;
+
     private Integer page;
 
     private Integer size;
 
+    // urutan hasil: firstName / lastName / email, di ikuti ",asc" atau ",desc". null artinya urut id (cursor mode: firstName)
+    private String sort;
+
+    // cursor dari paging.nextCursor response sebelumnya, string kosong untuk halaman pertama. null artinya pakai page (offset)
+    private String after;
+
+    // false artinya tidak menjalankan SELECT COUNT(*), response hanya berisi hasNext tanpa totalPage
+    private Boolean count;
+
 }
@@ -26,8 +26,22 @@ public class Address {
     @Column(name = "postal_code")
     private String postalCode;
 
+    // pemilik address (sama dengan contacts.username), supaya perubahan address per user bisa di baca dari index (username, version, id)
+    private String username;
+
+    // versi perubahan terakhir, lihat Contact.version
+    private long version;
+
     @ManyToOne
     @JoinColumn(name = "contact_id", referencedColumnName = "id")
     private Contact contact;
 
+    // username ikut contact, jadi address yang di simpan lewat repository langsung juga terisi
+    @PrePersist
+    void fillUsername() {
+        if (username == null && contact != null && contact.getUser() != null) {
+            username = contact.getUser().getUsername();
+        }
+    }
+
 }
@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.util.List;
+import java.util.Locale;
 
 @Setter
 @Getter
@@ -27,8 +28,24 @@ public class Contact {
 
     private String phone;
 
+    // phone yang hanya berisi angka, "0899-991 2222" / "+62 899..." jadi "08999912222" / "62899...", untuk filter phone
+    @Column(name = "phone_digits")
+    private String phoneDigits;
+
+    // phone_digits di balik, dengan index (username, phone_reversed) cari "phone berakhiran ..." jadi LIKE '...%' (range scan)
+    @Column(name = "phone_reversed")
+    private String phoneReversed;
+
     private String email;
 
+    // domain email huruf kecil ("budi@Example.com" jadi "example.com"), dengan index (username, email_domain) untuk filter domain
+    @Column(name = "email_domain")
+    private String emailDomain;
+
+    // versi perubahan terakhir (sync_versions.version saat transaksi yang mengubah contact ini), untuk GET /api/contacts/changes
+    // contact lama yang di buat sebelum kolom ini ada bernilai 0
+    private long version;
+
     @ManyToOne
     @JoinColumn(name = "username", referencedColumnName = "username")
     private User user;
@@ -36,4 +53,43 @@ public class Contact {
     @OneToMany(mappedBy = "contact")
     private List<Address> addresses;
 
+    // di isi setiap insert / update lewat JPA, jadi phone_digits, phone_reversed dan email_domain selalu ikut phone dan email
+    @PrePersist
+    @PreUpdate
+    void normalize() {
+        phoneDigits = phoneDigits(phone);
+        phoneReversed = phoneDigits == null ? null : new StringBuilder(phoneDigits).reverse().toString();
+        emailDomain = emailDomain(email);
+    }
+
+    // ambil angka saja, null tetap null
+    public static String phoneDigits(String phone) {
+        if (phone == null) {
+            return null;
+        }
+
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = 0; i < phone.length(); i++) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+
+    // bagian setelah '@' terakhir, huruf kecil. null jika tidak ada '@' atau domain kosong
+    // harus sama dengan backfill di ContactRepository.backfillEmailDomain
+    public static String emailDomain(String email) {
+        if (email == null) {
+            return null;
+        }
+
+        int at = email.lastIndexOf('@');
+        if (at < 0 || at == email.length() - 1) {
+            return null;
+        }
+        return email.substring(at + 1).toLowerCase(Locale.ROOT);
+    }
+
 }
@@ -0,0 +1,55 @@
+package com.tutorial.restful.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "sessions")
+public class Session implements Persistable<String> {
+
+    // satu row per login (per device). satu user bisa punya banyak session
+    // yang di simpan hanya SHA-256 dari token (lihat SessionTokens), token asli hanya di pegang client
+
+    @Id
+    @Column(name = "token_hash")
+    private String tokenHash;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "username", referencedColumnName = "username")
+    private User user;
+
+    @Column(name = "created_at")
+    private Long createdAt;
+
+    @Column(name = "expired_at")
+    private Long expiredAt;
+
+    // id di isi manual, tanpa ini save() akan merge (select dulu) bukan insert langsung
+    @Transient
+    private boolean persisted;
+
+    @Override
+    public String getId() {
+        return tokenHash;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
+
+}
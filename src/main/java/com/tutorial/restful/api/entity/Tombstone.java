@@ -0,0 +1,42 @@
+package com.tutorial.restful.api.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "tombstones")
+public class Tombstone {
+
+    // catatan contact / address yang sudah di hapus, supaya GET /api/contacts/changes bisa memberi tahu client row mana yang hilang
+    // id sama dengan id row yang di hapus (UUID, tidak pernah di pakai ulang)
+
+    public static final String CONTACT = "contact";
+
+    public static final String ADDRESS = "address";
+
+    @Id
+    private String id;
+
+    private String username;
+
+    // sync_versions.version transaksi yang menghapus
+    private long version;
+
+    // CONTACT / ADDRESS
+    private String type;
+
+    // contact pemilik address, null untuk type contact
+    @Column(name = "contact_id")
+    private String contactId;
+
+    @Column(name = "deleted_at")
+    private Long deletedAt;
+
+}
@@ -23,10 +23,7 @@ public class User {
 
     private String name;
 
-    private String token;
-
-    @Column(name = "token_expired_at")
-    private Long tokenExpiredAt;
+    // token login ada di tabel sessions (bisa banyak device), bukan di row users
 
     @OneToMany(mappedBy = "user")
     private List<Contact> contacts;
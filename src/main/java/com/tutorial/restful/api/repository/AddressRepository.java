@@ -1,11 +1,17 @@
 package com.tutorial.restful.api.repository;
 
+import com.tutorial.restful.api.dto.AddressResponse;
 import com.tutorial.restful.api.entity.Address;
 import com.tutorial.restful.api.entity.Contact;
 import com.tutorial.restful.api.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +23,30 @@ public interface AddressRepository extends JpaRepository<Address, String> {
 
     List<Address> findAllByContact(Contact contact); // cari berdasarkan id contact,  return list[contact]
 
+    // DTO projection untuk endpoint read, kolom response langsung di select ke AddressResponse tanpa entity Address / Contact / User
+    // query: select a.id, a.street, ... from addresses a join contacts c on c.id = a.contact_id where c.username = ? and c.id = ? and a.id = ?
+    @Query("select new com.tutorial.restful.api.dto.AddressResponse(a.id, a.street, a.city, a.province, a.country, a.postalCode) " +
+            "from Address a where a.contact.user.username = :username and a.contact.id = :contactId and a.id = :addressId")
+    Optional<AddressResponse> findResponse(@Param("username") String username, @Param("contactId") String contactId, @Param("addressId") String addressId);
+
+    // query: select a.id, a.street, ... from addresses a join contacts c on c.id = a.contact_id where c.username = ? and c.id = ?
+    @Query("select new com.tutorial.restful.api.dto.AddressResponse(a.id, a.street, a.city, a.province, a.country, a.postalCode) " +
+            "from Address a where a.contact.user.username = :username and a.contact.id = :contactId")
+    List<AddressResponse> findResponses(@Param("username") String username, @Param("contactId") String contactId);
+
+    // address yang berubah setelah posisi (version, id) terakhir client, untuk GET /api/contacts/changes
+    // query: select a.id, a.contact_id, ... from addresses a where a.username = ? and (a.version > ? or (a.version = ? and a.id > ?)) order by a.version, a.id limit ?
+    // di baca dari index (username, version, id), tanpa join ke contacts
+    @Query("select a.id, a.contact.id, a.street, a.city, a.province, a.country, a.postalCode, a.version from Address a where a.username = :username " +
+            "and (a.version > :version or (a.version = :version and a.id > :id)) order by a.version, a.id")
+    List<Object[]> findChanges(@Param("username") String username, @Param("version") long version, @Param("id") String id, Pageable pageable);
+
+    // hapus address milik beberapa contact sekaligus, sebelum contact nya di hapus (foreign key fk_contacts_addresses)
+    // native query, join ke contacts supaya hanya address dari contact milik user ini yang terhapus
+    // query: delete a from addresses a join contacts c on c.id = a.contact_id where c.username = ? and c.id in (?, ?, ...)
+    @Modifying
+    @Query(value = "delete a from addresses a join contacts c on c.id = a.contact_id " +
+            "where c.username = :username and c.id in (:contactIds)", nativeQuery = true)
+    int deleteAllByUsernameAndContactIdIn(@Param("username") String username, @Param("contactIds") Collection<String> contactIds);
+
 }
@@ -0,0 +1,16 @@
+package com.tutorial.restful.api.repository;
+
+import com.tutorial.restful.api.entity.Contact;
+
+import java.util.List;
+
+public interface ContactBulkRepository {
+
+    // custom fragment untuk ContactRepository
+    // save() dengan id yang sudah di isi (UUID) di anggap entity lama, jadi merge() dan SELECT dulu per contact sebelum INSERT
+    // method ini langsung persist() tanpa SELECT, lalu flush sekali supaya INSERT di kirim per batch (hibernate.jdbc.batch_size)
+    // harus di panggil di dalam transaksi
+
+    void insertAll(List<Contact> contacts);
+
+}
@@ -0,0 +1,31 @@
+package com.tutorial.restful.api.repository;
+
+import com.tutorial.restful.api.entity.Contact;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.List;
+
+// nama class harus <nama interface fragment>Impl supaya di temukan Spring Data
+class ContactBulkRepositoryImpl implements ContactBulkRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void insertAll(List<Contact> contacts) {
+        for (Contact contact : contacts) {
+            entityManager.persist(contact);
+        }
+
+        // query: insert into contacts (...) values (...), (...), ... (rewriteBatchedStatements=true di URL datasource)
+        entityManager.flush();
+
+        // dengan open-in-view persistence context hidup selama request, contact yang sudah di tulis di lepas
+        // supaya tidak menumpuk (memory dan dirty checking) untuk chunk berikutnya. tidak clear() supaya User request tetap managed
+        for (Contact contact : contacts) {
+            entityManager.detach(contact);
+        }
+    }
+
+}
@@ -1,15 +1,25 @@
 package com.tutorial.restful.api.repository;
 
+import com.tutorial.restful.api.dto.ContactResponse;
 import com.tutorial.restful.api.entity.Contact;
 import com.tutorial.restful.api.entity.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ContactRepository extends JpaRepository<Contact, String>, JpaSpecificationExecutor<Contact> {
+public interface ContactRepository extends JpaRepository<Contact, String>, JpaSpecificationExecutor<Contact>, ContactSearchRepository, ContactBulkRepository {
 
     /**
      * // JpaSpecificationExecutor jika ingin menggunakan fitur Specification perlu di Extends
@@ -21,4 +31,61 @@ public interface ContactRepository extends JpaRepository<Contact, String>, JpaSp
     // query method
     Optional<Contact> findFirstByUserAndId(User user, String id);
 
+    // query: select c.id, c.first_name, c.last_name, c.email, c.phone from contacts c where c.username = ? and c.id = ?
+    // DTO projection untuk endpoint read, tanpa entity Contact (persistence context, snapshot dirty checking, load User eager)
+    @Query("select new com.tutorial.restful.api.dto.ContactResponse(c.id, c.firstName, c.lastName, c.email, c.phone) " +
+            "from Contact c where c.user.username = :username and c.id = :id")
+    Optional<ContactResponse> findResponseByUsernameAndId(@Param("username") String username, @Param("id") String id);
+
+    // query: select c.id, c.first_name, c.last_name, c.email, c.phone from contacts c where c.username = ? and c.id in (?, ?, ...)
+    // username tetap di cek walaupun id dari index user itu sendiri, supaya contact user lain tidak pernah ikut ter-return
+    @Query("select new com.tutorial.restful.api.dto.ContactResponse(c.id, c.firstName, c.lastName, c.email, c.phone) " +
+            "from Contact c where c.user.username = :username and c.id in :ids")
+    List<ContactResponse> findResponsesByUsernameAndIdIn(@Param("username") String username, @Param("ids") Collection<String> ids);
+
+    // query: select count(*) > 0 from contacts c where c.username = ? and c.id = ?
+    boolean existsByUserAndId(User user, String id);
+
+    // query: select c.id, c.first_name, c.last_name, c.email, c.phone_digits from contacts c where c.username = ?
+    // untuk membangun ContactSearchIndex, hanya kolom yang di index tanpa membuat entity Contact
+    // fetch size Integer.MIN_VALUE supaya MySQL driver streaming baris per baris. Stream<T> harus di pakai di dalam transaksi dan di close
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "" + Integer.MIN_VALUE))
+    @Query("select c.id, c.firstName, c.lastName, c.email, c.phoneDigits from Contact c where c.user.username = :username")
+    Stream<Object[]> streamSearchFields(@Param("username") String username);
+
+    // query: select c.id, c.first_name, ..., a.id, a.street, ... from contacts c left join addresses a on a.contact_id = c.id
+    //        where c.username = ? order by c.id
+    // untuk export, satu row per address (contact tanpa address tetap 1 row dengan kolom address null), row contact yang sama selalu berurutan
+    // order by c.id di baca dari index username (username, id), jadi tidak ada filesort walaupun contact nya jutaan
+    // fetch size Integer.MIN_VALUE supaya MySQL driver streaming baris per baris (cursor forward-only). Stream<T> harus di pakai di dalam transaksi dan di close
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "" + Integer.MIN_VALUE))
+    @Query("select c.id, c.firstName, c.lastName, c.email, c.phone, a.id, a.street, a.city, a.province, a.country, a.postalCode " +
+            "from Contact c left join c.addresses a where c.user.username = :username order by c.id")
+    Stream<Object[]> streamExport(@Param("username") String username);
+
+    // contact yang berubah setelah posisi (version, id) terakhir client, untuk GET /api/contacts/changes
+    // query: select c.id, ... from contacts c where c.username = ? and (c.version > ? or (c.version = ? and c.id > ?)) order by c.version, c.id limit ?
+    // di baca dari index (username, version, id), jumlah row yang di baca sebanding dengan jumlah perubahan, bukan jumlah contact
+    @Query("select c.id, c.firstName, c.lastName, c.email, c.phone, c.version from Contact c where c.user.username = :username " +
+            "and (c.version > :version or (c.version = :version and c.id > :id)) order by c.version, c.id")
+    List<Object[]> findChanges(@Param("username") String username, @Param("version") long version, @Param("id") String id, Pageable pageable);
+
+    // query: delete from contacts where username = ? and id in (?, ?, ...)
+    // set-based delete, tanpa load entity satu per satu. address nya harus sudah di hapus dulu (AddressRepository.deleteAllByUsernameAndContactIdIn)
+    @Modifying
+    @Query(value = "delete from contacts where username = :username and id in (:ids)", nativeQuery = true)
+    int deleteAllByUsernameAndIdIn(@Param("username") String username, @Param("ids") Collection<String> ids);
+
+    // query: select id from contacts where id > ? order by id limit ?
+    // keyset per primary key untuk job backfill, setiap batch mulai dari id terakhir batch sebelumnya (tidak pakai offset)
+    @Query(value = "select id from contacts where id > :after order by id limit :limit", nativeQuery = true)
+    List<String> findIdsAfter(@Param("after") String after, @Param("limit") int limit);
+
+    // query: update contacts set email_domain = ... where id between ? and ? and email_domain is null
+    // sama dengan Contact.emailDomain(): bagian setelah '@' terakhir, huruf kecil, null jika tidak ada '@' atau domain kosong
+    @Modifying
+    @Query(value = "update contacts set email_domain = nullif(lower(substring_index(email, '@', -1)), '') " +
+            "where id between :fromId and :toId and email_domain is null and email like '%@%'", nativeQuery = true)
+    int backfillEmailDomain(@Param("fromId") String fromId, @Param("toId") String toId);
+
 }
@@ -0,0 +1,21 @@
+package com.tutorial.restful.api.repository;
+
+import com.tutorial.restful.api.dto.ContactResponse;
+import com.tutorial.restful.api.entity.Contact;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface ContactSearchRepository {
+
+    // custom fragment untuk ContactRepository
+    // findAll(Specification, Pageable) selalu menjalankan SELECT COUNT(*) tambahan, method ini hanya ambil row nya saja
+    // biasanya di panggil dengan limit = size + 1, row ke size + 1 hanya di pakai untuk tahu apakah masih ada halaman berikutnya
+    //
+    // hasil langsung di select ke ContactResponse (select new ...), bukan entity Contact
+    // jadi Hibernate tidak perlu simpan entity di persistence context, snapshot untuk dirty checking, dan load User (@ManyToOne eager)
+
+    List<ContactResponse> findResponses(Specification<Contact> specification, Sort sort, long offset, int limit);
+
+}
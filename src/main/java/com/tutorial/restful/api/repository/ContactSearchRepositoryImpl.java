@@ -0,0 +1,45 @@
+package com.tutorial.restful.api.repository;
+
+import com.tutorial.restful.api.dto.ContactResponse;
+import com.tutorial.restful.api.entity.Contact;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+
+// nama class harus <nama interface fragment>Impl supaya di temukan Spring Data
+class ContactSearchRepositoryImpl implements ContactSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ContactResponse> findResponses(Specification<Contact> specification, Sort sort, long offset, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ContactResponse> query = criteriaBuilder.createQuery(ContactResponse.class);
+        Root<Contact> root = query.from(Contact.class);
+
+        // query: select c.id, c.first_name, c.last_name, c.email, c.phone from contacts c where ... order by ... limit ?, ?
+        query.select(criteriaBuilder.construct(ContactResponse.class,
+                root.get("id"), root.get("firstName"), root.get("lastName"), root.get("email"), root.get("phone")));
+
+        Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+
+        return entityManager.createQuery(query)
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+}
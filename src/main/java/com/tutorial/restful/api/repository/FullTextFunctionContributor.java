@@ -0,0 +1,24 @@
+package com.tutorial.restful.api.repository;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+public class FullTextFunctionContributor implements FunctionContributor {
+
+    // JPQL / Criteria tidak punya MATCH ... AGAINST milik MySQL, jadi di daftarkan sebagai function Hibernate
+    // di load lewat META-INF/services/org.hibernate.boot.model.FunctionContributor
+    // return relevance score (double), > 0 artinya row cocok. jumlah kolom harus sama persis dengan kolom FULLTEXT index di database.sql
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicType<Double> score = functionContributions.getTypeConfiguration().getBasicTypeRegistry().resolve(StandardBasicTypes.DOUBLE);
+
+        // match_against(kolom, query)
+        functionContributions.getFunctionRegistry().registerPattern("match_against", "match(?1) against(?2 in boolean mode)", score);
+        // match_against2(kolom1, kolom2, query)
+        functionContributions.getFunctionRegistry().registerPattern("match_against2", "match(?1, ?2) against(?3 in boolean mode)", score);
+    }
+
+}
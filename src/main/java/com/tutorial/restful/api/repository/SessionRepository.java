@@ -0,0 +1,52 @@
+package com.tutorial.restful.api.repository;
+
+import com.tutorial.restful.api.entity.Session;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@Repository
+public interface SessionRepository extends JpaRepository<Session, String> {
+
+    // query: select s.*, u.* from sessions s join users u on s.username = u.username where s.token_hash = ?
+    // session dan user di ambil dalam satu query, karena UserArgumentResolver selalu butuh keduanya
+    @Query("select s from Session s join fetch s.user where s.tokenHash = :tokenHash")
+    Optional<Session> findWithUser(@Param("tokenHash") String tokenHash);
+
+    // query: select s.token_hash from sessions s where s.username = ?
+    @Query("select s.tokenHash from Session s where s.user.username = :username")
+    List<String> findTokenHashesByUsername(@Param("username") String username);
+
+    // query: delete from sessions where token_hash = ?
+    // return jumlah row terhapus. deleteById() melempar EmptyResultDataAccessException (500) jika dua logout balapan
+    @Modifying
+    @Query("delete from Session s where s.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+    // query: delete from sessions where username = ?
+    @Modifying
+    @Query("delete from Session s where s.user.username = :username")
+    int deleteAllByUsername(@Param("username") String username);
+
+    // query: select s.token_hash from sessions s
+    // fetch size Integer.MIN_VALUE supaya MySQL driver streaming baris per baris, tidak load semua ke memory
+    // Stream<T> harus di pakai di dalam transaksi dan di close setelah selesai
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "" + Integer.MIN_VALUE))
+    @Query("select s.tokenHash from Session s")
+    Stream<String> streamAllTokenHashes();
+
+    // query: delete from sessions where expired_at < ? order by expired_at limit ?
+    // native query karena JPQL tidak punya LIMIT di delete. pakai index expired_at, jadi hanya row expired yang di lock
+    @Modifying
+    @Query(value = "delete from sessions where expired_at < :now order by expired_at limit :limit", nativeQuery = true)
+    int deleteExpired(@Param("now") long now, @Param("limit") int limit);
+
+}
@@ -0,0 +1,40 @@
+package com.tutorial.restful.api.repository;
+
+import com.tutorial.restful.api.entity.Tombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TombstoneRepository extends JpaRepository<Tombstone, String> {
+
+    // tombstone untuk contact yang akan di hapus, set-based sebelum DELETE (satu INSERT ... SELECT, tanpa load entity)
+    // query: insert into tombstones (...) select c.id, c.username, ?, 'contact', null, ? from contacts c where c.username = ? and c.id in (...)
+    @Modifying
+    @Query(value = "insert into tombstones (id, username, version, type, contact_id, deleted_at) " +
+            "select c.id, c.username, :version, 'contact', null, :deletedAt from contacts c " +
+            "where c.username = :username and c.id in (:contactIds)", nativeQuery = true)
+    int insertContacts(@Param("username") String username, @Param("contactIds") Collection<String> contactIds,
+                       @Param("version") long version, @Param("deletedAt") long deletedAt);
+
+    // tombstone untuk semua address milik contact yang akan di hapus, join ke contacts sama dengan AddressRepository.deleteAllByUsernameAndContactIdIn
+    @Modifying
+    @Query(value = "insert into tombstones (id, username, version, type, contact_id, deleted_at) " +
+            "select a.id, c.username, :version, 'address', a.contact_id, :deletedAt from addresses a join contacts c on c.id = a.contact_id " +
+            "where c.username = :username and c.id in (:contactIds)", nativeQuery = true)
+    int insertAddresses(@Param("username") String username, @Param("contactIds") Collection<String> contactIds,
+                        @Param("version") long version, @Param("deletedAt") long deletedAt);
+
+    // keyset (version, id) setelah posisi terakhir client, di baca dari index (username, version, id)
+    // query: select ... from tombstones where username = ? and (version > ? or (version = ? and id > ?)) order by version, id limit ?
+    @Query("select t from Tombstone t where t.username = :username " +
+            "and (t.version > :version or (t.version = :version and t.id > :id)) order by t.version, t.id")
+    List<Tombstone> findChanges(@Param("username") String username, @Param("version") long version, @Param("id") String id, Pageable pageable);
+
+}
@@ -2,15 +2,20 @@ package com.tutorial.restful.api.repository;
 
 import com.tutorial.restful.api.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
-
 @Repository
 public interface UserRepository extends JpaRepository<User, String> {
 
-    // query method
-    // query: select u.* form user u where u.token = ? limit?
-    Optional<User> findFirstByToken(String token);
+    // query: update users set password = ? where username = ? and password = ?
+    // hanya update jika password belum di ganti oleh request lain selama rehash berjalan
+    @Modifying
+    @Query("update User u set u.password = :newPassword where u.username = :username and u.password = :oldPassword")
+    int updatePassword(@Param("username") String username,
+                       @Param("oldPassword") String oldPassword,
+                       @Param("newPassword") String newPassword);
 
 }
@@ -1,7 +1,15 @@
 package com.tutorial.restful.api.resolver;
 
+import com.tutorial.restful.api.entity.Session;
 import com.tutorial.restful.api.entity.User;
+import com.tutorial.restful.api.repository.SessionRepository;
 import com.tutorial.restful.api.repository.UserRepository;
+import com.tutorial.restful.api.security.LiveTokenFilter;
+import com.tutorial.restful.api.security.NegativeTokenCache;
+import com.tutorial.restful.api.security.SessionExpiry;
+import com.tutorial.restful.api.security.SessionTokens;
+import com.tutorial.restful.api.security.SignedTokenService;
+import com.tutorial.restful.api.security.TokenCache;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.MethodParameter;
@@ -23,6 +31,24 @@ public class UserArgumentResolver implements HandlerMethodArgumentResolver {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TokenCache tokenCache;
+
+    @Autowired
+    private NegativeTokenCache negativeTokenCache;
+
+    @Autowired
+    private LiveTokenFilter liveTokenFilter;
+
+    @Autowired
+    private SignedTokenService signedTokenService;
+
+    @Autowired
+    private SessionExpiry sessionExpiry;
+
     @Override
     public boolean supportsParameter(MethodParameter parameter) {
         return User.class.equals(parameter.getParameterType()); // set entity menjadi argument resolver
@@ -39,15 +65,55 @@ public class UserArgumentResolver implements HandlerMethodArgumentResolver {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized");
         }
 
-        // cek apakah token user ada. jika iya kasih. jika tidak ada kasih Unauthorized status code 401
-        User user = userRepository.findFirstByToken(token)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized"));
+        // signed token di verifikasi di memory (HMAC + expiredAt + revocation set), tanpa query sessions
+        // user tetap di load by primary key (bukan getReferenceById): user yang sudah di hapus selama token masih berlaku jadi 401,
+        // dan entity yang di return sudah lengkap, aman di pakai di luar request thread (UserServiceImpl.update di databaseExecutor)
+        if (signedTokenService.isSignedToken(token)){
+            String username = signedTokenService.verify(token);
+            if (username == null){
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized");
+            }
+            return userRepository.findById(username)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized"));
+        }
+
+        // di DB hanya ada hash token, semua lookup (cache, filter, sessions) pakai hash
+        String tokenHash = SessionTokens.hash(token);
 
-        // cek apakah tokenExpiredAt db lebih kecil dari dari waktu saat ini. jika iya kasih Unauthorized status code 401
-        if (user.getTokenExpiredAt() < System.currentTimeMillis()){
+        // token yang baru saja di tolak, atau token yang pasti tidak ada di sessions, langsung 401 tanpa query DB
+        if (negativeTokenCache.contains(tokenHash) || !liveTokenFilter.mightContain(tokenHash)){
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized");
         }
 
+        // cek dulu di cache, jika ada tidak perlu query ke DB. entry cache tidak pernah lebih lama dari expired_at session
+        // cache hit tetap memperpanjang session (sliding expiry), kalau tidak user aktif ter-logout di expired_at awal
+        // expired_at baru juga di simpan di entry cache, supaya entry tidak di buang di expired_at lama
+        TokenCache.CachedSession cached = tokenCache.get(tokenHash);
+        if (cached != null){
+            tokenCache.extend(tokenHash, sessionExpiry.touch(tokenHash, cached.expiredAt()));
+            return cached.user();
+        }
+
+        // cek apakah session dengan token ini ada. jika tidak ada kasih Unauthorized status code 401
+        // session dan user di ambil dalam satu query (join fetch)
+        Session session = sessionRepository.findWithUser(tokenHash)
+                .orElseThrow(() -> {
+                    negativeTokenCache.put(tokenHash);
+                    return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized");
+                });
+
+        // cek apakah expired_at session lebih kecil dari dari waktu saat ini. jika iya kasih Unauthorized status code 401
+        // perpanjangan sliding expiry yang belum di flush ke DB ikut di hitung
+        if (sessionExpiry.effectiveExpiredAt(tokenHash, session.getExpiredAt()) < System.currentTimeMillis()){
+            negativeTokenCache.put(tokenHash);
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Unauthorized");
+        }
+
+        long expiredAt = sessionExpiry.touch(tokenHash, session.getExpiredAt()); // sliding expiry, di flush ke DB secara berkala
+
+        User user = session.getUser();
+        tokenCache.put(tokenHash, user, expiredAt);
+
         return user;
     }
 }
@@ -14,8 +14,6 @@
 
 package com.tutorial.restful.api.security;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.util.Arrays;
 
@@ -209,10 +207,46 @@ public class BCrypt {
     static final int MIN_LOG_ROUNDS = 4;
     static final int MAX_LOG_ROUNDS = 31;
 
+    // bcrypt never reads more than 18 words (72 bytes) of key material
+    private static final int MAX_KEY_LEN = 72;
+
+    // "$2a$" + 2 digit rounds + "$" + 22 chars salt + 31 chars hash
+    private static final int MAX_HASH_LEN = 60;
+
+    // Per-thread hashing context. The Blowfish state and all buffers are reset in place,
+    // so a hash or check does not allocate anything except the returned String
+    private static final ThreadLocal<BCrypt> CONTEXT = ThreadLocal.withInitial(BCrypt::new);
+
+    // SecureRandom is thread-safe, seeding a new one for every salt is wasted work
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     // Expanded Blowfish key
-    private int P[];
+    private final int P[] = new int[P_orig.length];
+
+    private final int S[] = new int[S_orig.length];
+
+    // Reusable working buffers
+    private final int cdata[] = new int[bf_crypt_ciphertext.length];
+
+    private final int lr[] = new int[2];
+
+    private final byte keyb[] = new byte[MAX_KEY_LEN];
 
-    private int S[];
+    private final byte saltb[] = new byte[BCRYPT_SALT_LEN];
+
+    private final char encoded[] = new char[MAX_HASH_LEN];
+
+    private int encodedLen;
+
+    // Output of streamtowords(): correct and buggy word, and the cumulative sign flag
+    private int word;
+
+    private int wordBug;
+
+    private int sign;
+
+    private BCrypt() {
+    }
 
     /**
      * Encode a byte array using bcrypt's slightly-modified base64 encoding scheme. Note
@@ -221,9 +255,11 @@ public class BCrypt {
      * @param d the byte array to encode
      * @param len the number of bytes to encode
      * @param rs the destination buffer for the base64-encoded string
+     * @param pos the position in rs to start writing at
+     * @return the position in rs after the last written character
      * @exception IllegalArgumentException if the length is invalid
      */
-    static void encode_base64(byte d[], int len, StringBuilder rs) throws IllegalArgumentException {
+    static int encode_base64(byte d[], int len, char rs[], int pos) throws IllegalArgumentException {
         int off = 0;
         int c1, c2;
 
@@ -233,25 +269,26 @@ public class BCrypt {
 
         while (off < len) {
             c1 = d[off++] & 0xff;
-            rs.append(base64_code[(c1 >> 2) & 0x3f]);
+            rs[pos++] = base64_code[(c1 >> 2) & 0x3f];
             c1 = (c1 & 0x03) << 4;
             if (off >= len) {
-                rs.append(base64_code[c1 & 0x3f]);
+                rs[pos++] = base64_code[c1 & 0x3f];
                 break;
             }
             c2 = d[off++] & 0xff;
             c1 |= (c2 >> 4) & 0x0f;
-            rs.append(base64_code[c1 & 0x3f]);
+            rs[pos++] = base64_code[c1 & 0x3f];
             c1 = (c2 & 0x0f) << 2;
             if (off >= len) {
-                rs.append(base64_code[c1 & 0x3f]);
+                rs[pos++] = base64_code[c1 & 0x3f];
                 break;
             }
             c2 = d[off++] & 0xff;
             c1 |= (c2 >> 6) & 0x03;
-            rs.append(base64_code[c1 & 0x3f]);
-            rs.append(base64_code[c2 & 0x3f]);
+            rs[pos++] = base64_code[c1 & 0x3f];
+            rs[pos++] = base64_code[c2 & 0x3f];
         }
+        return pos;
     }
 
     /**
@@ -268,24 +305,20 @@ public class BCrypt {
     }
 
     /**
-     * Decode a string encoded using bcrypt's base64 scheme to a byte array. Note that
-     * this is *not* compatible with the standard MIME-base64 encoding.
+     * Decode part of a string encoded using bcrypt's base64 scheme into a byte array.
+     * Note that this is *not* compatible with the standard MIME-base64 encoding.
      * @param s the string to decode
-     * @param maxolen the maximum number of bytes to decode
-     * @return an array containing the decoded bytes
-     * @throws IllegalArgumentException if maxolen is invalid
+     * @param off the index of the first character to decode
+     * @param end the index after the last character to decode
+     * @param ret the destination buffer, its length is the maximum number of bytes to
+     * decode
+     * @return the number of decoded bytes
      */
-    static byte[] decode_base64(String s, int maxolen) throws IllegalArgumentException {
-        StringBuilder rs = new StringBuilder();
-        int off = 0, slen = s.length(), olen = 0;
-        byte ret[];
+    static int decode_base64(String s, int off, int end, byte ret[]) {
+        int olen = 0, maxolen = ret.length;
         byte c1, c2, c3, c4, o;
 
-        if (maxolen <= 0) {
-            throw new IllegalArgumentException("Invalid maxolen");
-        }
-
-        while (off < slen - 1 && olen < maxolen) {
+        while (off < end - 1 && olen < maxolen) {
             c1 = char64(s.charAt(off++));
             c2 = char64(s.charAt(off++));
             if (c1 == -1 || c2 == -1) {
@@ -293,8 +326,8 @@ public class BCrypt {
             }
             o = (byte) (c1 << 2);
             o |= (c2 & 0x30) >> 4;
-            rs.append((char) o);
-            if (++olen >= maxolen || off >= slen) {
+            ret[olen] = o;
+            if (++olen >= maxolen || off >= end) {
                 break;
             }
             c3 = char64(s.charAt(off++));
@@ -303,22 +336,17 @@ public class BCrypt {
             }
             o = (byte) ((c2 & 0x0f) << 4);
             o |= (c3 & 0x3c) >> 2;
-            rs.append((char) o);
-            if (++olen >= maxolen || off >= slen) {
+            ret[olen] = o;
+            if (++olen >= maxolen || off >= end) {
                 break;
             }
             c4 = char64(s.charAt(off++));
             o = (byte) ((c3 & 0x03) << 6);
             o |= c4;
-            rs.append((char) o);
+            ret[olen] = o;
             ++olen;
         }
-
-        ret = new byte[olen];
-        for (off = 0; off < olen; off++) {
-            ret[off] = (byte) rs.charAt(off);
-        }
-        return ret;
+        return olen;
     }
 
     /**
@@ -350,94 +378,67 @@ public class BCrypt {
     }
 
     /**
-     * Cycically extract a word of key material
-     * @param data the string to extract the data from
-     * @param offp a "pointer" (as a one-entry array) to the current offset into data
-     * @param signp a "pointer" (as a one-entry array) to the cumulative flag for
-     * non-benign sign extension
-     * @return correct and buggy next word of material from data as int[2]
+     * Cycically extract a word of key material. The correct and buggy words are left in
+     * {@link #word} and {@link #wordBug}, non-benign sign extension is accumulated in
+     * {@link #sign}
+     * @param data the buffer to extract the data from
+     * @param len the number of valid bytes in data
+     * @param off the current offset into data
+     * @return the offset of the next word
      */
-    private static int[] streamtowords(byte data[], int offp[], int signp[]) {
-        int i;
-        int words[] = { 0, 0 };
-        int off = offp[0];
-        int sign = signp[0];
-
-        for (i = 0; i < 4; i++) {
-            words[0] = (words[0] << 8) | (data[off] & 0xff);
-            words[1] = (words[1] << 8) | data[off]; // sign extension bug
+    private int streamtowords(byte data[], int len, int off) {
+        int correct = 0, buggy = 0;
+
+        for (int i = 0; i < 4; i++) {
+            correct = (correct << 8) | (data[off] & 0xff);
+            buggy = (buggy << 8) | data[off]; // sign extension bug
             if (i > 0) {
-                sign |= words[1] & 0x80;
+                this.sign |= buggy & 0x80;
             }
-            off = (off + 1) % data.length;
+            off = (off + 1) % len;
         }
 
-        offp[0] = off;
-        signp[0] = sign;
-        return words;
-    }
-
-    /**
-     * Cycically extract a word of key material
-     * @param data the string to extract the data from
-     * @param offp a "pointer" (as a one-entry array) to the current offset into data
-     * @return the next word of material from data
-     */
-    private static int streamtoword(byte data[], int offp[]) {
-        int signp[] = { 0 };
-        return streamtowords(data, offp, signp)[0];
-    }
-
-    /**
-     * Cycically extract a word of key material, with sign-extension bug
-     * @param data the string to extract the data from
-     * @param offp a "pointer" (as a one-entry array) to the current offset into data
-     * @return the next word of material from data
-     */
-    private static int streamtoword_bug(byte data[], int offp[]) {
-        int signp[] = { 0 };
-        return streamtowords(data, offp, signp)[1];
+        this.word = correct;
+        this.wordBug = buggy;
+        return off;
     }
 
     /**
      * Initialise the Blowfish key schedule
      */
     private void init_key() {
-        this.P = P_orig.clone();
-        this.S = S_orig.clone();
+        System.arraycopy(P_orig, 0, this.P, 0, P_orig.length);
+        System.arraycopy(S_orig, 0, this.S, 0, S_orig.length);
     }
 
     /**
      * Key the Blowfish cipher
      * @param key an array containing the key
+     * @param keylen the number of valid bytes in key
      * @param sign_ext_bug true to implement the 2x bug
-     * @param safety bit 16 is set when the safety measure is requested
      */
-    private void key(byte key[], boolean sign_ext_bug, int safety) {
-        int i;
-        int koffp[] = { 0 };
-        int lr[] = { 0, 0 };
+    private void key(byte key[], int keylen, boolean sign_ext_bug) {
+        int i, koff = 0;
         int plen = this.P.length, slen = this.S.length;
 
+        this.lr[0] = 0;
+        this.lr[1] = 0;
+
         for (i = 0; i < plen; i++) {
-            if (!sign_ext_bug) {
-                this.P[i] = this.P[i] ^ streamtoword(key, koffp);
-            }
-            else {
-                this.P[i] = this.P[i] ^ streamtoword_bug(key, koffp);
-            }
+            koff = streamtowords(key, keylen, koff);
+            this.P[i] = this.P[i] ^ (sign_ext_bug ? this.wordBug : this.word);
         }
 
         for (i = 0; i < plen; i += 2) {
-            encipher(lr, 0);
-            this.P[i] = lr[0];
-            this.P[i + 1] = lr[1];
+            encipher(this.lr, 0);
+            this.P[i] = this.lr[0];
+            this.P[i + 1] = this.lr[1];
         }
 
         for (i = 0; i < slen; i += 2) {
-            encipher(lr, 0);
-            this.S[i] = lr[0];
-            this.S[i + 1] = lr[1];
+            encipher(this.lr, 0);
+            this.S[i] = this.lr[0];
+            this.S[i + 1] = this.lr[1];
         }
     }
 
@@ -446,24 +447,26 @@ public class BCrypt {
      * Future-Adaptable Password Scheme" https://www.openbsd.org/papers/bcrypt-paper.ps
      * @param data salt information
      * @param key password information
+     * @param keylen the number of valid bytes in key
      * @param sign_ext_bug true to implement the 2x bug
      * @param safety bit 16 is set when the safety measure is requested
      */
-    private void ekskey(byte data[], byte key[], boolean sign_ext_bug, int safety) {
-        int i;
-        int koffp[] = { 0 }, doffp[] = { 0 };
-        int lr[] = { 0, 0 };
+    private void ekskey(byte data[], byte key[], int keylen, boolean sign_ext_bug, int safety) {
+        int i, koff = 0, doff = 0;
         int plen = this.P.length, slen = this.S.length;
-        int signp[] = { 0 }; // non-benign sign-extension flag
         int diff = 0; // zero iff correct and buggy are same
 
+        this.lr[0] = 0;
+        this.lr[1] = 0;
+        this.sign = 0; // non-benign sign-extension flag
+
         for (i = 0; i < plen; i++) {
-            int words[] = streamtowords(key, koffp, signp);
-            diff |= words[0] ^ words[1];
-            this.P[i] = this.P[i] ^ words[sign_ext_bug ? 1 : 0];
+            koff = streamtowords(key, keylen, koff);
+            diff |= this.word ^ this.wordBug;
+            this.P[i] = this.P[i] ^ (sign_ext_bug ? this.wordBug : this.word);
         }
 
-        int sign = signp[0];
+        int sign = this.sign;
 
         /*
          * At this point, "diff" is zero iff the correct and buggy algorithms produced
@@ -494,19 +497,23 @@ public class BCrypt {
         this.P[0] ^= sign;
 
         for (i = 0; i < plen; i += 2) {
-            lr[0] ^= streamtoword(data, doffp);
-            lr[1] ^= streamtoword(data, doffp);
-            encipher(lr, 0);
-            this.P[i] = lr[0];
-            this.P[i + 1] = lr[1];
+            doff = streamtowords(data, BCRYPT_SALT_LEN, doff);
+            this.lr[0] ^= this.word;
+            doff = streamtowords(data, BCRYPT_SALT_LEN, doff);
+            this.lr[1] ^= this.word;
+            encipher(this.lr, 0);
+            this.P[i] = this.lr[0];
+            this.P[i + 1] = this.lr[1];
         }
 
         for (i = 0; i < slen; i += 2) {
-            lr[0] ^= streamtoword(data, doffp);
-            lr[1] ^= streamtoword(data, doffp);
-            encipher(lr, 0);
-            this.S[i] = lr[0];
-            this.S[i + 1] = lr[1];
+            doff = streamtowords(data, BCRYPT_SALT_LEN, doff);
+            this.lr[0] ^= this.word;
+            doff = streamtowords(data, BCRYPT_SALT_LEN, doff);
+            this.lr[1] ^= this.word;
+            encipher(this.lr, 0);
+            this.S[i] = this.lr[0];
+            this.S[i + 1] = this.lr[1];
         }
     }
 
@@ -518,18 +525,18 @@ public class BCrypt {
     }
 
     /**
-     * Perform the central password hashing step in the bcrypt scheme
-     * @param password the password to hash
-     * @param salt the binary salt to hash with the password
+     * Perform the central password hashing step in the bcrypt scheme. The password is
+     * read from {@link #keyb} and the salt from {@link #saltb}, the raw hash is left in
+     * {@link #cdata}
+     * @param keylen the number of valid bytes in keyb
+     * @param saltlen the number of decoded bytes in saltb
      * @param log_rounds the binary logarithm of the number of rounds of hashing to apply
      * @param sign_ext_bug true to implement the 2x bug
      * @param safety bit 16 is set when the safety measure is requested
-     * @return an array containing the binary hashed password
      */
-    private byte[] crypt_raw(byte password[], byte salt[], int log_rounds, boolean sign_ext_bug, int safety,
-                             boolean for_check) {
-        int cdata[] = bf_crypt_ciphertext.clone();
-        int clen = cdata.length;
+    private void crypt_raw(int keylen, int saltlen, int log_rounds, boolean sign_ext_bug, int safety,
+                           boolean for_check) {
+        int clen = this.cdata.length;
 
         long rounds;
         if (log_rounds < 4 || log_rounds > 31) {
@@ -548,126 +555,224 @@ public class BCrypt {
             }
         }
 
-        if (salt.length != BCRYPT_SALT_LEN) {
+        if (saltlen != BCRYPT_SALT_LEN) {
             throw new IllegalArgumentException("Bad salt length");
         }
 
+        if (keylen == 0) {
+            // only reachable with the "$2$" revision and an empty password
+            throw new IllegalArgumentException("Empty password");
+        }
+
+        System.arraycopy(bf_crypt_ciphertext, 0, this.cdata, 0, clen);
+
         init_key();
-        ekskey(salt, password, sign_ext_bug, safety);
-        for (int i = 0; i < rounds; i++) {
-            key(password, sign_ext_bug, safety);
-            key(salt, false, safety);
+        ekskey(this.saltb, this.keyb, keylen, sign_ext_bug, safety);
+        for (long i = 0; i < rounds; i++) {
+            key(this.keyb, keylen, sign_ext_bug);
+            key(this.saltb, BCRYPT_SALT_LEN, false);
         }
 
         for (int i = 0; i < 64; i++) {
             for (int j = 0; j < (clen >> 1); j++) {
-                encipher(cdata, j << 1);
+                encipher(this.cdata, j << 1);
             }
         }
+    }
 
-        byte[] ret = new byte[clen * 4];
-        for (int i = 0, j = 0; i < clen; i++) {
-            ret[j++] = (byte) ((cdata[i] >> 24) & 0xff);
-            ret[j++] = (byte) ((cdata[i] >> 16) & 0xff);
-            ret[j++] = (byte) ((cdata[i] >> 8) & 0xff);
-            ret[j++] = (byte) (cdata[i] & 0xff);
+    /**
+     * Copy the UTF-8 encoding of a password into {@link #keyb}, the same bytes as
+     * {@code password.getBytes(StandardCharsets.UTF_8)} but without allocating. Only the
+     * first {@link #MAX_KEY_LEN} bytes are kept since bcrypt never reads past them
+     * @param password the password to encode
+     * @return the length of the full UTF-8 encoding, at least MAX_KEY_LEN if truncated
+     */
+    private int loadKey(String password) {
+        int n = 0, len = password.length();
+
+        for (int i = 0; i < len && n < MAX_KEY_LEN; i++) {
+            char c = password.charAt(i);
+            if (c < 0x80) {
+                n = putKeyByte(n, c);
+            }
+            else if (c < 0x800) {
+                n = putKeyByte(n, 0xc0 | (c >> 6));
+                n = putKeyByte(n, 0x80 | (c & 0x3f));
+            }
+            else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(password.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, password.charAt(++i));
+                    n = putKeyByte(n, 0xf0 | (cp >> 18));
+                    n = putKeyByte(n, 0x80 | ((cp >> 12) & 0x3f));
+                    n = putKeyByte(n, 0x80 | ((cp >> 6) & 0x3f));
+                    n = putKeyByte(n, 0x80 | (cp & 0x3f));
+                }
+                else {
+                    n = putKeyByte(n, '?'); // malformed surrogate, same replacement as String.getBytes
+                }
+            }
+            else {
+                n = putKeyByte(n, 0xe0 | (c >> 12));
+                n = putKeyByte(n, 0x80 | ((c >> 6) & 0x3f));
+                n = putKeyByte(n, 0x80 | (c & 0x3f));
+            }
         }
-        return ret;
+        return n;
     }
 
-    private static String hashpwforcheck(byte[] passwordb, String salt) {
-        return hashpw(passwordb, salt, true);
+    private int putKeyByte(int n, int b) {
+        if (n < MAX_KEY_LEN) {
+            this.keyb[n] = (byte) b;
+        }
+        return n + 1;
+    }
+
+    private int loadKey(byte passwordb[]) {
+        System.arraycopy(passwordb, 0, this.keyb, 0, Math.min(passwordb.length, MAX_KEY_LEN));
+        return passwordb.length;
     }
 
     /**
-     * Hash a password using the OpenBSD bcrypt scheme
-     * @param password the password to hash
+     * Hash the password in {@link #keyb} and write the encoded result into
+     * {@link #encoded}
+     * @param passwordlen the full length of the password in bytes
      * @param salt the salt to hash with (perhaps generated using BCrypt.gensalt)
-     * @return the hashed password
      */
-    public static String hashpw(String password, String salt) {
-        byte passwordb[];
+    private void hashpw(int passwordlen, String salt, boolean for_check) {
+        char minor = (char) 0;
+        int rounds, off, saltlen, keylen;
 
-        passwordb = password.getBytes(StandardCharsets.UTF_8);
+        try {
+            if (salt == null) {
+                throw new IllegalArgumentException("salt cannot be null");
+            }
 
-        return hashpw(passwordb, salt);
-    }
+            int saltLength = salt.length();
 
-    /**
-     * Hash a password using the OpenBSD bcrypt scheme
-     * @param passwordb the password to hash, as a byte array
-     * @param salt the salt to hash with (perhaps generated using BCrypt.gensalt)
-     * @return the hashed password
-     */
-    public static String hashpw(byte passwordb[], String salt) {
-        return hashpw(passwordb, salt, false);
-    }
+            if (saltLength < 28) {
+                throw new IllegalArgumentException("Invalid salt");
+            }
 
-    private static String hashpw(byte passwordb[], String salt, boolean for_check) {
-        BCrypt B;
-        String real_salt;
-        byte saltb[], hashed[];
-        char minor = (char) 0;
-        int rounds, off;
-        StringBuilder rs = new StringBuilder();
+            if (salt.charAt(0) != '$' || salt.charAt(1) != '2') {
+                throw new IllegalArgumentException("Invalid salt version");
+            }
+            if (salt.charAt(2) == '$') {
+                off = 3;
+            }
+            else {
+                minor = salt.charAt(2);
+                if ((minor != 'a' && minor != 'x' && minor != 'y' && minor != 'b') || salt.charAt(3) != '$') {
+                    throw new IllegalArgumentException("Invalid salt revision");
+                }
+                off = 4;
+            }
 
-        if (salt == null) {
-            throw new IllegalArgumentException("salt cannot be null");
-        }
+            // Extract number of rounds
+            if (salt.charAt(off + 2) > '$') {
+                throw new IllegalArgumentException("Missing salt rounds");
+            }
 
-        int saltLength = salt.length();
+            if (off == 4 && saltLength < 29) {
+                throw new IllegalArgumentException("Invalid salt");
+            }
+            char r1 = salt.charAt(off), r2 = salt.charAt(off + 1);
+            if (r1 >= '0' && r1 <= '9' && r2 >= '0' && r2 <= '9') {
+                rounds = (r1 - '0') * 10 + (r2 - '0');
+            }
+            else {
+                // not two plain digits, let parseInt decide (and report) as before
+                rounds = Integer.parseInt(salt.substring(off, off + 2));
+            }
 
-        if (saltLength < 28) {
-            throw new IllegalArgumentException("Invalid salt");
-        }
+            saltlen = decode_base64(salt, off + 3, off + 25, this.saltb);
 
-        if (salt.charAt(0) != '$' || salt.charAt(1) != '2') {
-            throw new IllegalArgumentException("Invalid salt version");
-        }
-        if (salt.charAt(2) == '$') {
-            off = 3;
-        }
-        else {
-            minor = salt.charAt(2);
-            if ((minor != 'a' && minor != 'x' && minor != 'y' && minor != 'b') || salt.charAt(3) != '$') {
-                throw new IllegalArgumentException("Invalid salt revision");
+            // revisions a, b and y hash the terminating NUL byte as well
+            keylen = passwordlen;
+            if (minor >= 'a') {
+                if (keylen < MAX_KEY_LEN) {
+                    this.keyb[keylen] = 0;
+                }
+                keylen++;
             }
-            off = 4;
-        }
 
-        // Extract number of rounds
-        if (salt.charAt(off + 2) > '$') {
-            throw new IllegalArgumentException("Missing salt rounds");
+            crypt_raw(Math.min(keylen, MAX_KEY_LEN), saltlen, rounds, minor == 'x', minor == 'a' ? 0x10000 : 0,
+                    for_check);
         }
-
-        if (off == 4 && saltLength < 29) {
-            throw new IllegalArgumentException("Invalid salt");
+        finally {
+            // don't keep the password around in the per-thread context
+            Arrays.fill(this.keyb, (byte) 0);
         }
-        rounds = Integer.parseInt(salt.substring(off, off + 2));
-
-        real_salt = salt.substring(off + 3, off + 25);
-        saltb = decode_base64(real_salt, BCRYPT_SALT_LEN);
 
+        int n = 0;
+        char rs[] = this.encoded;
+        rs[n++] = '$';
+        rs[n++] = '2';
         if (minor >= 'a') {
-            passwordb = Arrays.copyOf(passwordb, passwordb.length + 1);
+            rs[n++] = minor;
         }
+        rs[n++] = '$';
+        rs[n++] = (char) ('0' + rounds / 10);
+        rs[n++] = (char) ('0' + rounds % 10);
+        rs[n++] = '$';
+        n = encode_base64(this.saltb, BCRYPT_SALT_LEN, rs, n);
 
-        B = new BCrypt();
-        hashed = B.crypt_raw(passwordb, saltb, rounds, minor == 'x', minor == 'a' ? 0x10000 : 0, for_check);
+        // raw hash is the big-endian bytes of cdata, the last byte is dropped
+        byte hashed[] = this.keyb;
+        int clen = this.cdata.length;
+        for (int i = 0, j = 0; i < clen; i++) {
+            hashed[j++] = (byte) ((this.cdata[i] >> 24) & 0xff);
+            hashed[j++] = (byte) ((this.cdata[i] >> 16) & 0xff);
+            hashed[j++] = (byte) ((this.cdata[i] >> 8) & 0xff);
+            hashed[j++] = (byte) (this.cdata[i] & 0xff);
+        }
+        n = encode_base64(hashed, clen * 4 - 1, rs, n);
+        Arrays.fill(hashed, 0, clen * 4, (byte) 0);
 
-        rs.append("$2");
-        if (minor >= 'a') {
-            rs.append(minor);
+        this.encodedLen = n;
+    }
+
+    /**
+     * Compare the encoded hash in {@link #encoded} with a previously hashed one, without
+     * returning early on the first difference
+     */
+    private boolean encodedEquals(String hashed) {
+        if (hashed.length() != this.encodedLen) {
+            return false;
         }
-        rs.append("$");
-        if (rounds < 10) {
-            rs.append("0");
+
+        int diff = 0;
+        for (int i = 0; i < this.encodedLen; i++) {
+            diff |= this.encoded[i] ^ hashed.charAt(i);
         }
-        rs.append(rounds);
-        rs.append("$");
-        encode_base64(saltb, saltb.length, rs);
-        encode_base64(hashed, bf_crypt_ciphertext.length * 4 - 1, rs);
-        return rs.toString();
+        return diff == 0;
+    }
+
+    private String encodedString() {
+        return new String(this.encoded, 0, this.encodedLen);
+    }
+
+    /**
+     * Hash a password using the OpenBSD bcrypt scheme
+     * @param password the password to hash
+     * @param salt the salt to hash with (perhaps generated using BCrypt.gensalt)
+     * @return the hashed password
+     */
+    public static String hashpw(String password, String salt) {
+        BCrypt B = CONTEXT.get();
+        B.hashpw(B.loadKey(password), salt, false);
+        return B.encodedString();
+    }
+
+    /**
+     * Hash a password using the OpenBSD bcrypt scheme
+     * @param passwordb the password to hash, as a byte array
+     * @param salt the salt to hash with (perhaps generated using BCrypt.gensalt)
+     * @return the hashed password
+     */
+    public static String hashpw(byte passwordb[], String salt) {
+        BCrypt B = CONTEXT.get();
+        B.hashpw(B.loadKey(passwordb), salt, false);
+        return B.encodedString();
     }
 
     /**
@@ -680,9 +785,6 @@ public class BCrypt {
      * @exception IllegalArgumentException if prefix or log_rounds is invalid
      */
     public static String gensalt(String prefix, int log_rounds, SecureRandom random) throws IllegalArgumentException {
-        StringBuilder rs = new StringBuilder();
-        byte rnd[] = new byte[BCRYPT_SALT_LEN];
-
         if (!prefix.startsWith("$2")
                 || (prefix.charAt(2) != 'a' && prefix.charAt(2) != 'y' && prefix.charAt(2) != 'b')) {
             throw new IllegalArgumentException("Invalid prefix");
@@ -691,18 +793,21 @@ public class BCrypt {
             throw new IllegalArgumentException("Invalid log_rounds");
         }
 
+        BCrypt B = CONTEXT.get();
+        byte rnd[] = B.saltb;
         random.nextBytes(rnd);
 
-        rs.append("$2");
-        rs.append(prefix.charAt(2));
-        rs.append("$");
-        if (log_rounds < 10) {
-            rs.append("0");
-        }
-        rs.append(log_rounds);
-        rs.append("$");
-        encode_base64(rnd, rnd.length, rs);
-        return rs.toString();
+        int n = 0;
+        char rs[] = B.encoded;
+        rs[n++] = '$';
+        rs[n++] = '2';
+        rs[n++] = prefix.charAt(2);
+        rs[n++] = '$';
+        rs[n++] = (char) ('0' + log_rounds / 10);
+        rs[n++] = (char) ('0' + log_rounds % 10);
+        rs[n++] = '$';
+        n = encode_base64(rnd, rnd.length, rs, n);
+        return new String(rs, 0, n);
     }
 
     /**
@@ -714,7 +819,7 @@ public class BCrypt {
      * @exception IllegalArgumentException if prefix or log_rounds is invalid
      */
     public static String gensalt(String prefix, int log_rounds) throws IllegalArgumentException {
-        return gensalt(prefix, log_rounds, new SecureRandom());
+        return gensalt(prefix, log_rounds, RANDOM);
     }
 
     /**
@@ -737,7 +842,7 @@ public class BCrypt {
      * @exception IllegalArgumentException if log_rounds is invalid
      */
     public static String gensalt(int log_rounds) throws IllegalArgumentException {
-        return gensalt(log_rounds, new SecureRandom());
+        return gensalt(log_rounds, RANDOM);
     }
 
     public static String gensalt(String prefix) {
@@ -760,8 +865,9 @@ public class BCrypt {
      * @return true if the passwords match, false otherwise
      */
     public static boolean checkpw(String plaintext, String hashed) {
-        byte[] passwordb = plaintext.getBytes(StandardCharsets.UTF_8);
-        return equalsNoEarlyReturn(hashed, hashpwforcheck(passwordb, hashed));
+        BCrypt B = CONTEXT.get();
+        B.hashpw(B.loadKey(plaintext), hashed, true);
+        return B.encodedEquals(hashed);
     }
 
     /**
@@ -772,11 +878,9 @@ public class BCrypt {
      * @since 5.3
      */
     public static boolean checkpw(byte[] passwordb, String hashed) {
-        return equalsNoEarlyReturn(hashed, hashpwforcheck(passwordb, hashed));
-    }
-
-    static boolean equalsNoEarlyReturn(String a, String b) {
-        return MessageDigest.isEqual(a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8));
+        BCrypt B = CONTEXT.get();
+        B.hashpw(B.loadKey(passwordb), hashed, true);
+        return B.encodedEquals(hashed);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,73 @@
+package com.tutorial.restful.api.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class DatabaseExecutor implements Executor, MeterBinder {
+
+    // lanjutan async setelah BCrypt selesai (simpan session login, simpan user / password baru, rehash) di jalankan di sini
+    // jangan di thread PasswordHasher: thread hashing yang menunggu koneksi Hikari / I/O DB tidak bisa hashing request lain
+    // ukuran pool sebaiknya tidak lebih dari pool koneksi Hikari. jika antrian penuh RejectedExecutionException (503 di ErrorController)
+
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    public DatabaseExecutor(@Value("${app.database-executor.pool-size:8}") int poolSize,
+                            @Value("${app.database-executor.queue-capacity:256}") int queueCapacity) {
+        AtomicInteger counter = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "database-executor-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> {
+                    rejected.incrementAndGet();
+                    throw new RejectedExecutionException("Database executor queue is full");
+                }
+        );
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        executor.execute(command);
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("database.executor.queue.size", executor, pool -> pool.getQueue().size()).register(registry);
+        Gauge.builder("database.executor.active", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+        FunctionCounter.builder("database.executor.rejected", this, DatabaseExecutor::getRejected).register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+}
@@ -0,0 +1,236 @@
+package com.tutorial.restful.api.security;
+
+import com.tutorial.restful.api.repository.SessionRepository;
+import jakarta.annotation.PostConstruct;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+public class LiveTokenFilter implements MeterBinder {
+
+    // Bloom filter dari semua token yang masih ada di sessions.token_hash (yang di simpan hash token, bukan token asli)
+    // mightContain() false artinya token pasti tidak ada di DB, jadi bisa langsung 401 tanpa query
+    // mightContain() true artinya token mungkin ada (bisa false positive), tetap dicek ke DB
+    // Bloom filter tidak bisa menghapus, jadi token yang logout tetap "mungkin ada" sampai rebuild berikutnya
+    //
+    // filter hanya tahu token yang di buat oleh instance ini (login) dan token yang ada saat rebuild.
+    // token valid dari login di instance lain akan di tolak 401 sampai rebuild berikutnya, jadi filter hanya boleh
+    // aktif jika aplikasi jalan satu instance (app.token-filter.single-instance=true), di cek saat startup
+
+    private final boolean enabled;
+
+    private final int expectedInsertions;
+
+    private final double falsePositiveRate;
+
+    private final boolean singleInstance;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    // null sampai rebuild pertama selesai, selama itu semua token dianggap mungkin ada
+    private volatile Bits current;
+
+    // filter yang sedang di bangun, token dari login selama rebuild juga di masukkan ke sini
+    private volatile Bits building;
+
+    private final AtomicLong rejections = new AtomicLong();
+
+    public LiveTokenFilter(@Value("${app.token-filter.enabled:false}") boolean enabled,
+                           @Value("${app.token-filter.expected-insertions:1000000}") int expectedInsertions,
+                           @Value("${app.token-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                           @Value("${app.token-filter.single-instance:false}") boolean singleInstance,
+                           PlatformTransactionManager transactionManager) {
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.singleInstance = singleInstance;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @PostConstruct
+    void checkSingleInstance() {
+        if (enabled && !singleInstance) {
+            throw new IllegalStateException("app.token-filter.enabled requires app.token-filter.single-instance=true");
+        }
+    }
+
+    public boolean mightContain(String tokenHash) {
+        Bits bits = current;
+        if (!enabled || bits == null) {
+            return true;
+        }
+
+        if (bits.mightContain(tokenHash)) {
+            return true;
+        }
+
+        rejections.incrementAndGet();
+        return false;
+    }
+
+    // dipanggil setelah login berhasil. di dalam transaksi, token baru di masukkan setelah commit
+    // kalau di masukkan sebelum commit, rebuild yang mulai di antaranya tidak melihat row ini di snapshot DB
+    // dan juga tidak dapat put() (building masih null), jadi session yang valid di tolak sampai rebuild berikutnya.
+    // setelah commit: commit sebelum snapshot rebuild ikut ter-stream, commit setelahnya pasti melihat building != null
+    public void put(String tokenHash) {
+        if (!enabled) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(tokenHash);
+                }
+            });
+        } else {
+            add(tokenHash);
+        }
+    }
+
+    private void add(String tokenHash) {
+        Bits bits = current;
+        if (bits != null) {
+            bits.put(tokenHash);
+        }
+
+        Bits next = building;
+        if (next != null) {
+            next.put(tokenHash);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // rebuild berkala supaya token yang sudah logout / expired keluar dari filter
+    @Scheduled(
+            initialDelayString = "${app.token-filter.rebuild-interval-ms:600000}",
+            fixedDelayString = "${app.token-filter.rebuild-interval-ms:600000}"
+    )
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        long started = System.currentTimeMillis();
+        long count = sessionRepository.count();
+
+        // ukuran filter minimal 2x jumlah token saat ini, supaya login baru tidak langsung menaikkan false positive
+        Bits next = new Bits(Math.max(expectedInsertions, count * 2), falsePositiveRate);
+        building = next;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<String> tokens = sessionRepository.streamAllTokenHashes()) {
+                    tokens.forEach(next::put);
+                }
+            });
+            current = next;
+        } finally {
+            building = null;
+        }
+
+        log.info("Live token filter rebuilt with {} tokens in {} ms", count, System.currentTimeMillis() - started);
+    }
+
+    public long getRejections() {
+        return rejections.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("token.filter.rejections", this, LiveTokenFilter::getRejections).register(registry);
+    }
+
+    static final class Bits {
+
+        private final AtomicLongArray words;
+
+        private final long bitSize;
+
+        private final int numHashes;
+
+        Bits(long expectedInsertions, double falsePositiveRate) {
+            // rumus standar Bloom filter
+            // m = -n * ln(p) / (ln 2)^2
+            // k = m / n * ln 2
+            long bits = (long) (-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            bits = Math.max(64, bits);
+            this.words = new AtomicLongArray((int) ((bits + 63) / 64));
+            this.bitSize = (long) words.length() * 64;
+            this.numHashes = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+        }
+
+        void put(String token) {
+            long h1 = hash(token);
+            long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L);
+            for (int i = 0; i < numHashes; i++) {
+                long index = ((h1 + i * h2) & Long.MAX_VALUE) % bitSize;
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+
+                long old;
+                do {
+                    old = words.get(word);
+                    if ((old & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(word, old, old | mask));
+            }
+        }
+
+        boolean mightContain(String token) {
+            long h1 = hash(token);
+            long h2 = mix(h1 ^ 0x9e3779b97f4a7c15L);
+            for (int i = 0; i < numHashes; i++) {
+                long index = ((h1 + i * h2) & Long.MAX_VALUE) % bitSize;
+                if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // FNV-1a 64 bit lalu di acak lagi, cukup untuk UUID / token string
+        private static long hash(String token) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < token.length(); i++) {
+                h ^= token.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            return mix(h);
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+            z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+            return z ^ (z >>> 33);
+        }
+
+    }
+
+}
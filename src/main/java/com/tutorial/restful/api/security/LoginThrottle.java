@@ -0,0 +1,229 @@
+package com.tutorial.restful.api.security;
+
+import com.tutorial.restful.api.Exception.TooManyRequestsException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class LoginThrottle implements MeterBinder {
+
+    // batasi percobaan login sebelum query user dan BCrypt.checkpw, karena login gagal adalah request paling mahal
+    // dua limiter token bucket: per username (tebak password satu akun) dan per remote address (satu client banyak akun)
+    // setiap login gagal menambah back-off eksponensial, login berhasil me-reset back-off
+    //
+    // state hanya di memory instance ini. bucket di simpan per stripe (LRU terbatas),
+    // jadi memory tetap terbatas walaupun ada jutaan username / address berbeda
+
+    private final boolean enabled;
+
+    private final Limiter usernames;
+
+    private final Limiter addresses;
+
+    private final AtomicLong rejections = new AtomicLong();
+
+    public LoginThrottle(@Value("${app.login-throttle.enabled:false}") boolean enabled,
+                         @Value("${app.login-throttle.username-capacity:10}") int usernameCapacity,
+                         @Value("${app.login-throttle.username-refill-per-second:0.2}") double usernameRefillPerSecond,
+                         @Value("${app.login-throttle.address-capacity:50}") int addressCapacity,
+                         @Value("${app.login-throttle.address-refill-per-second:5}") double addressRefillPerSecond,
+                         @Value("${app.login-throttle.username-backoff-free-failures:3}") int usernameBackoffFreeFailures,
+                         @Value("${app.login-throttle.address-backoff-free-failures:20}") int addressBackoffFreeFailures,
+                         @Value("${app.login-throttle.backoff-base-ms:1000}") long backoffBaseMillis,
+                         @Value("${app.login-throttle.backoff-max-ms:300000}") long backoffMaxMillis,
+                         @Value("${app.login-throttle.max-keys:1000000}") int maxKeys,
+                         @Value("${app.login-throttle.stripes:64}") int stripes) {
+        this.enabled = enabled;
+        this.usernames = new Limiter(usernameCapacity, usernameRefillPerSecond,
+                usernameBackoffFreeFailures, backoffBaseMillis, backoffMaxMillis, maxKeys, stripes);
+        // satu address bisa di pakai banyak user (NAT / proxy kantor), jadi back-off address mulai lebih lambat
+        this.addresses = new Limiter(addressCapacity, addressRefillPerSecond,
+                addressBackoffFreeFailures, backoffBaseMillis, backoffMaxMillis, maxKeys, stripes);
+    }
+
+    // ambil satu token dari bucket username dan address, throw TooManyRequestsException jika habis / sedang back-off
+    public void acquire(String username, String remoteAddress) {
+        if (!enabled) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long wait = Math.max(usernames.acquire(username, now), addresses.acquire(remoteAddress, now));
+        if (wait > 0) {
+            rejections.incrementAndGet();
+            throw new TooManyRequestsException("Too many login attempts, please try again later",
+                    TimeUnit.NANOSECONDS.toSeconds(wait - 1) + 1); // dibulatkan ke atas
+        }
+    }
+
+    public void onFailure(String username, String remoteAddress) {
+        if (!enabled) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        usernames.onFailure(username, now);
+        addresses.onFailure(remoteAddress, now);
+    }
+
+    public void onSuccess(String username, String remoteAddress) {
+        if (!enabled) {
+            return;
+        }
+
+        usernames.onSuccess(username);
+        addresses.onSuccess(remoteAddress);
+    }
+
+    public long getRejections() {
+        return rejections.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("login.throttle.rejections", this, LoginThrottle::getRejections).register(registry);
+    }
+
+    static final class Limiter {
+
+        private final double capacity;
+
+        private final double refillPerNano;
+
+        private final int backoffFreeFailures;
+
+        private final long backoffBaseNanos;
+
+        private final long backoffMaxNanos;
+
+        private final Stripe[] stripes;
+
+        Limiter(int capacity, double refillPerSecond, int backoffFreeFailures, long backoffBaseMillis,
+                long backoffMaxMillis, int maxKeys, int stripes) {
+            this.capacity = capacity;
+            this.refillPerNano = refillPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.backoffFreeFailures = backoffFreeFailures;
+            this.backoffBaseNanos = TimeUnit.MILLISECONDS.toNanos(backoffBaseMillis);
+            this.backoffMaxNanos = TimeUnit.MILLISECONDS.toNanos(backoffMaxMillis);
+
+            // jumlah stripe di bulatkan ke pangkat 2 supaya index cukup pakai mask
+            int count = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+            int maxPerStripe = Math.max(1, maxKeys / count);
+            this.stripes = new Stripe[count];
+            for (int i = 0; i < count; i++) {
+                this.stripes[i] = new Stripe(maxPerStripe);
+            }
+        }
+
+        // return 0 jika token di dapat, atau lama (nano) yang harus di tunggu
+        long acquire(String key, long now) {
+            Stripe stripe = stripe(key);
+            synchronized (stripe) {
+                Bucket bucket = stripe.get(key);
+                if (bucket == null) {
+                    bucket = new Bucket(capacity, now);
+                    stripe.put(key, bucket);
+                }
+
+                if (bucket.failures > backoffFreeFailures && bucket.blockedUntil - now > 0) {
+                    return bucket.blockedUntil - now;
+                }
+
+                refill(bucket, now);
+                if (bucket.tokens < 1) {
+                    return (long) Math.ceil((1 - bucket.tokens) / refillPerNano);
+                }
+
+                bucket.tokens -= 1;
+                return 0;
+            }
+        }
+
+        void onFailure(String key, long now) {
+            Stripe stripe = stripe(key);
+            synchronized (stripe) {
+                Bucket bucket = stripe.get(key);
+                if (bucket == null) {
+                    return; // sudah di evict, mulai dari awal
+                }
+
+                bucket.failures++;
+                int exponent = bucket.failures - backoffFreeFailures;
+                if (exponent > 0) {
+                    // base * 2^(exponent - 1), di batasi backoffMax (shift di batasi supaya tidak overflow)
+                    long backoff = Math.min(backoffMaxNanos, backoffBaseNanos << Math.min(exponent - 1, 30));
+                    bucket.blockedUntil = now + backoff;
+                }
+            }
+        }
+
+        void onSuccess(String key) {
+            Stripe stripe = stripe(key);
+            synchronized (stripe) {
+                Bucket bucket = stripe.get(key);
+                if (bucket != null) {
+                    bucket.failures = 0;
+                }
+            }
+        }
+
+        private void refill(Bucket bucket, long now) {
+            long elapsed = now - bucket.lastRefill;
+            if (elapsed > 0) {
+                bucket.tokens = Math.min(capacity, bucket.tokens + elapsed * refillPerNano);
+                bucket.lastRefill = now;
+            }
+        }
+
+        private Stripe stripe(String key) {
+            int h = key.hashCode();
+            h ^= (h >>> 16);
+            return stripes[h & (stripes.length - 1)];
+        }
+
+    }
+
+    // LinkedHashMap(accessOrder = true), bucket yang paling lama tidak di akses di buang jika stripe penuh
+    // bucket yang di buang sama saja dengan bucket penuh, jadi hanya key yang sudah lama diam yang kehilangan state
+    private static final class Stripe extends LinkedHashMap<String, Bucket> {
+
+        private final int maxSize;
+
+        Stripe(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+            return size() > maxSize;
+        }
+
+    }
+
+    private static final class Bucket {
+
+        private double tokens;
+
+        private long lastRefill;
+
+        private int failures;
+
+        private long blockedUntil;
+
+        Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.lastRefill = now;
+        }
+
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.tutorial.restful.api.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class NegativeTokenCache implements MeterBinder {
+
+    // cache token yang sudah pasti tidak valid (tidak ada di DB, expired, atau sudah logout), key = SessionTokens.hash
+    // supaya request dengan token sampah yang sama tidak query ke DB berulang kali
+    // TTL sengaja pendek, karena ini hanya untuk menahan flood. bukan sumber kebenaran
+    // contains() ada di setiap request dengan token yang tidak di kenal, jadi entry di bagi ke beberapa stripe (lock per stripe)
+
+    private final boolean enabled;
+
+    private final long ttlMillis;
+
+    private final Stripe[] stripes;
+
+    private final AtomicLong rejections = new AtomicLong();
+
+    public NegativeTokenCache(@Value("${app.token-negative-cache.enabled:false}") boolean enabled,
+                              @Value("${app.token-negative-cache.max-size:100000}") int maxSize,
+                              @Value("${app.token-negative-cache.ttl-ms:5000}") long ttlMillis,
+                              @Value("${app.token-negative-cache.stripes:64}") int stripes) {
+        this.enabled = enabled;
+        this.ttlMillis = ttlMillis;
+
+        // jumlah stripe di bulatkan ke pangkat 2 supaya index cukup pakai mask, max-size di bagi rata per stripe
+        int count = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        int maxPerStripe = Math.max(1, maxSize / count);
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe(maxPerStripe);
+        }
+    }
+
+    // return true jika token baru saja di tolak, jadi bisa langsung 401 tanpa query DB
+    public boolean contains(String token) {
+        if (!enabled) {
+            return false;
+        }
+
+        Stripe stripe = stripe(token);
+        synchronized (stripe) {
+            Long expiresAt = stripe.get(token);
+            if (expiresAt == null) {
+                return false;
+            }
+            if (expiresAt <= System.currentTimeMillis()) {
+                stripe.remove(token);
+                return false;
+            }
+        }
+
+        rejections.incrementAndGet();
+        return true;
+    }
+
+    public void put(String token) {
+        if (!enabled || token == null) {
+            return;
+        }
+
+        Stripe stripe = stripe(token);
+        synchronized (stripe) {
+            stripe.put(token, System.currentTimeMillis() + ttlMillis);
+        }
+    }
+
+    private Stripe stripe(String token) {
+        int h = token.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    public long getRejections() {
+        return rejections.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("token.negative-cache.rejections", this, NegativeTokenCache::getRejections).register(registry);
+    }
+
+    // LinkedHashMap(accessOrder = true), value = waktu expired entry dalam millisecond
+    // jika stripe penuh, token yang paling lama tidak di akses di buang
+    private static final class Stripe extends LinkedHashMap<String, Long> {
+
+        private final int maxSize;
+
+        Stripe(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > maxSize;
+        }
+
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.tutorial.restful.api.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+public class PasswordHasher implements MeterBinder {
+
+    // BCrypt.hashpw / BCrypt.checkpw memakan CPU puluhan millisecond
+    // supaya tidak menahan thread Tomcat, hashing di jalankan di thread pool sendiri yang ukurannya terbatas
+    // jika antrian penuh, langsung RejectedExecutionException (503 di ErrorController), bukan antri tanpa batas
+    //
+    // cost (log rounds) BCrypt di kalibrasi saat startup supaya satu hash kira-kira sesuai target-latency-ms di CPU ini
+    // hash lama dengan cost berbeda di hash ulang di background setelah login berhasil (lihat AuthServiceImpl)
+
+    // cost yang di ukur saat kalibrasi, cukup kecil supaya startup tidak lama
+    private static final int CALIBRATION_LOG_ROUNDS = 8;
+
+    private final ThreadPoolExecutor executor;
+
+    private final int logRounds;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong rehashed = new AtomicLong();
+
+    public PasswordHasher(@Value("${app.password-hasher.pool-size:0}") int poolSize,
+                          @Value("${app.password-hasher.queue-capacity:64}") int queueCapacity,
+                          @Value("${app.password-hasher.log-rounds:0}") int logRounds,
+                          @Value("${app.password-hasher.target-latency-ms:100}") long targetLatencyMillis,
+                          @Value("${app.password-hasher.min-log-rounds:10}") int minLogRounds,
+                          @Value("${app.password-hasher.max-log-rounds:16}") int maxLogRounds) {
+        // log-rounds 0 artinya di kalibrasi dari target-latency-ms
+        this.logRounds = logRounds > 0 ? logRounds : calibrate(targetLatencyMillis, minLogRounds, maxLogRounds);
+
+        // pool-size 0 artinya sesuai jumlah CPU
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> {
+                    rejected.incrementAndGet();
+                    throw new RejectedExecutionException("Password hashing queue is full");
+                }
+        );
+    }
+
+    public CompletableFuture<String> hash(String password) {
+        return CompletableFuture.supplyAsync(() -> BCrypt.hashpw(password, BCrypt.gensalt(logRounds)), executor);
+    }
+
+    public CompletableFuture<Boolean> check(String plaintext, String hashed) {
+        return CompletableFuture.supplyAsync(() -> BCrypt.checkpw(plaintext, hashed), executor);
+    }
+
+    // true jika hash tersimpan memakai cost yang berbeda dengan cost saat ini
+    public boolean needsRehash(String hashed) {
+        int rounds = logRounds(hashed);
+        return rounds > 0 && rounds != logRounds;
+    }
+
+    // hash ulang password yang sudah terbukti benar, return null jika pool sedang sibuk
+    // rehash hanya kerjaan tambahan, jadi jangan ambil slot antrian yang di butuhkan login / register
+    public CompletableFuture<String> rehash(String password) {
+        if (!executor.getQueue().isEmpty()) {
+            return null;
+        }
+
+        try {
+            return hash(password).whenComplete((hashed, e) -> {
+                if (e == null) {
+                    rehashed.incrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    public int getLogRounds() {
+        return logRounds;
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public long getRehashed() {
+        return rehashed.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("password.hasher.queue.size", executor, pool -> pool.getQueue().size()).register(registry);
+        Gauge.builder("password.hasher.active", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+        FunctionCounter.builder("password.hasher.rejected", this, PasswordHasher::getRejected).register(registry);
+        FunctionCounter.builder("password.hasher.rehashed", this, PasswordHasher::getRehashed).register(registry);
+        Gauge.builder("password.hasher.log-rounds", this, PasswordHasher::getLogRounds).register(registry);
+    }
+
+    // setiap tambah 1 log round waktu hash jadi 2x lipat
+    // jadi cukup ukur satu cost kecil lalu hitung cost terbesar yang masih di bawah target
+    private static int calibrate(long targetLatencyMillis, int minLogRounds, int maxLogRounds) {
+        String salt = BCrypt.gensalt(CALIBRATION_LOG_ROUNDS);
+        BCrypt.hashpw("calibration", salt); // warm up
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long started = System.nanoTime();
+            BCrypt.hashpw("calibration", salt);
+            best = Math.min(best, System.nanoTime() - started);
+        }
+
+        double ratio = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis) / (double) Math.max(best, 1);
+        int rounds = CALIBRATION_LOG_ROUNDS + (int) Math.floor(Math.log(ratio) / Math.log(2));
+        rounds = Math.max(minLogRounds, Math.min(maxLogRounds, rounds));
+
+        log.info("BCrypt calibrated to {} log rounds ({} ms at {} rounds, target {} ms)",
+                rounds, TimeUnit.NANOSECONDS.toMillis(best), CALIBRATION_LOG_ROUNDS, targetLatencyMillis);
+        return rounds;
+    }
+
+    // ambil cost dari hash BCrypt, "$2a$10$..." atau "$2$10$..." -> 10. return -1 jika bukan hash BCrypt
+    private static int logRounds(String hashed) {
+        if (hashed == null || hashed.length() < 7 || !hashed.startsWith("$2")) {
+            return -1;
+        }
+
+        int off = hashed.charAt(2) == '$' ? 3 : 4;
+        char r1 = hashed.charAt(off), r2 = hashed.charAt(off + 1);
+        if (r1 < '0' || r1 > '9' || r2 < '0' || r2 > '9') {
+            return -1;
+        }
+        return (r1 - '0') * 10 + (r2 - '0');
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+}
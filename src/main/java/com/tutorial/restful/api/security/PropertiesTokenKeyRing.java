@@ -0,0 +1,47 @@
+package com.tutorial.restful.api.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+@Component
+public class PropertiesTokenKeyRing implements TokenKeyRing {
+
+    // key ring dari application.properties
+    // format app.signed-token.keys = kid1:secretBase64,kid2:secretBase64
+    // untuk sumber key lain (vault, KMS, dll) buat bean TokenKeyRing sendiri dengan @Primary
+
+    private final Map<String, byte[]> keys = new HashMap<>();
+
+    private final String activeKeyId;
+
+    public PropertiesTokenKeyRing(@Value("${app.signed-token.keys:}") String keys,
+                                  @Value("${app.signed-token.active-key:}") String activeKeyId) {
+        for (String entry : keys.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+
+            int separator = entry.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid signed token key, expected kid:base64secret");
+            }
+            this.keys.put(entry.substring(0, separator).trim(), Base64.getDecoder().decode(entry.substring(separator + 1).trim()));
+        }
+        this.activeKeyId = activeKeyId;
+    }
+
+    @Override
+    public String activeKeyId() {
+        return activeKeyId;
+    }
+
+    @Override
+    public byte[] key(String keyId) {
+        return keys.get(keyId);
+    }
+
+}
@@ -0,0 +1,161 @@
+package com.tutorial.restful.api.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+public class SessionExpiry implements MeterBinder {
+
+    // lama session (token) setelah login, dan sliding expiry (opsional)
+    //
+    // sliding expiry: setiap request yang berhasil di resolve memperpanjang token menjadi now + ttl
+    // perpanjangan tidak langsung di tulis ke DB, tapi di kumpulkan di memory (satu entry per token)
+    // lalu di flush ke sessions.expired_at secara berkala dengan JDBC batch
+    // token hanya di perpanjang jika sisa waktunya sudah berkurang minimal min-extension-ms, jadi satu session aktif
+    // paling banyak satu write per min-extension-ms, bukan satu write per request
+
+    private static final String UPDATE_SQL =
+            "update sessions set expired_at = ? where token_hash = ? and expired_at < ?";
+
+    private final long ttlMillis;
+
+    private final boolean sliding;
+
+    private final long minExtensionMillis;
+
+    private final int batchSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // hash token -> expiredAt baru yang belum di tulis ke DB
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong flushed = new AtomicLong();
+
+    public SessionExpiry(@Value("${app.session.ttl-ms:172800000}") long ttlMillis,
+                         @Value("${app.session.sliding-enabled:false}") boolean sliding,
+                         @Value("${app.session.sliding-min-extension-ms:600000}") long minExtensionMillis,
+                         @Value("${app.session.sliding-flush-batch-size:500}") int batchSize) {
+        this.ttlMillis = ttlMillis;
+        this.sliding = sliding;
+        this.minExtensionMillis = minExtensionMillis;
+        this.batchSize = batchSize;
+    }
+
+    // waktu expired token yang baru di buat saat login
+    public long newExpiredAt() {
+        return System.currentTimeMillis() + ttlMillis;
+    }
+
+    // waktu expired yang berlaku untuk token ini, termasuk perpanjangan yang belum di flush ke DB
+    public long effectiveExpiredAt(String tokenHash, long storedExpiredAt) {
+        Long extended = pending.get(tokenHash);
+        return extended == null ? storedExpiredAt : Math.max(storedExpiredAt, extended);
+    }
+
+    // di panggil setelah token berhasil di resolve, return expiredAt yang berlaku setelah perpanjangan (untuk TokenCache.extend)
+    public long touch(String tokenHash, long storedExpiredAt) {
+        long current = effectiveExpiredAt(tokenHash, storedExpiredAt);
+        if (!sliding) {
+            return current;
+        }
+
+        long expiredAt = newExpiredAt();
+        if (expiredAt - current < minExtensionMillis) {
+            return current; // baru saja di perpanjang, belum perlu
+        }
+
+        pending.merge(tokenHash, expiredAt, Math::max);
+        return Math.max(current, expiredAt);
+    }
+
+    // token sudah tidak berlaku (logout), perpanjangan yang belum di flush di buang
+    public void forget(String tokenHash) {
+        if (tokenHash != null) {
+            pending.remove(tokenHash);
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.session.sliding-flush-interval-ms:30000}",
+            fixedDelayString = "${app.session.sliding-flush-interval-ms:30000}"
+    )
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        for (Map.Entry<String, Long> entry : pending.entrySet()) {
+            // remove(key, value) supaya perpanjangan yang masuk selama flush tidak ikut hilang
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                // where expired_at < ? supaya tidak memperpendek token. session yang sudah logout sudah di hapus, jadi tidak ada yang di update
+                batch.add(new Object[]{entry.getValue(), entry.getKey(), entry.getValue()});
+            }
+
+            if (batch.size() >= batchSize) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    // flush terakhir saat aplikasi berhenti, supaya session aktif tidak kehilangan perpanjangan
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void write(List<Object[]> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPDATE_SQL, batch));
+            flushed.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            // kembalikan ke pending, di coba lagi di flush berikutnya
+            log.warn("Flush {} session expiry failed, retry on next flush", batch.size(), e);
+            for (Object[] row : batch) {
+                pending.merge((String) row[1], (Long) row[0], Math::max);
+            }
+        }
+    }
+
+    public int pendingSize() {
+        return pending.size();
+    }
+
+    public long getFlushed() {
+        return flushed.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("session.expiry.pending", this, SessionExpiry::pendingSize).register(registry);
+        FunctionCounter.builder("session.expiry.flushed", this, SessionExpiry::getFlushed).register(registry);
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.tutorial.restful.api.security;
+
+import com.tutorial.restful.api.repository.SessionRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+public class SessionSweeper implements MeterBinder {
+
+    // session yang sudah expired tetap ada di tabel sessions jika client tidak pernah logout
+    // sweeper ini menghapus row sessions yang sudah expired secara berkala
+    // di kerjakan per batch kecil, satu transaksi per batch, supaya lock row tidak lama dan login tidak ikut tertahan
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    private final int maxBatches;
+
+    private final long batchPauseMillis;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SessionExpiry sessionExpiry;
+
+    private final AtomicLong reclaimed = new AtomicLong();
+
+    public SessionSweeper(@Value("${app.session-sweeper.enabled:true}") boolean enabled,
+                          @Value("${app.session-sweeper.batch-size:1000}") int batchSize,
+                          @Value("${app.session-sweeper.max-batches:100}") int maxBatches,
+                          @Value("${app.session-sweeper.batch-pause-ms:50}") long batchPauseMillis) {
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.batchPauseMillis = batchPauseMillis;
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.session-sweeper.interval-ms:300000}",
+            fixedDelayString = "${app.session-sweeper.interval-ms:300000}"
+    )
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+
+        // tulis dulu perpanjangan sliding expiry yang masih di memory, supaya session aktif tidak ikut di sapu
+        sessionExpiry.flush();
+
+        long started = System.currentTimeMillis();
+        long total = 0;
+        int batches = 0;
+
+        // batas waktu di tetapkan sekali di awal, token yang expired selama sweep berjalan di ambil di run berikutnya
+        long now = started;
+        while (batches < maxBatches) {
+            Integer updated = transactionTemplate.execute(status -> sessionRepository.deleteExpired(now, batchSize));
+            batches++;
+            total += updated == null ? 0 : updated;
+
+            if (updated == null || updated < batchSize) {
+                break; // sudah tidak ada lagi row expired
+            }
+
+            // beri jeda supaya transaksi login / request lain dapat giliran di antara batch
+            try {
+                Thread.sleep(batchPauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        reclaimed.addAndGet(total);
+        if (total > 0) {
+            log.info("Session sweeper reclaimed {} expired sessions in {} batches, {} ms",
+                    total, batches, System.currentTimeMillis() - started);
+        }
+    }
+
+    public long getReclaimed() {
+        return reclaimed.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("session.sweeper.reclaimed", this, SessionSweeper::getReclaimed).register(registry);
+    }
+
+}
@@ -0,0 +1,37 @@
+package com.tutorial.restful.api.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+
+public final class SessionTokens {
+
+    // token session yang di kirim ke client, dan hash yang di simpan di sessions.token_hash
+    // jika isi tabel sessions bocor, hash tidak bisa di pakai sebagai X-API-TOKEN
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    // MessageDigest tidak thread-safe, jadi satu instance per thread
+    private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private SessionTokens() {
+    }
+
+    public static String newToken() {
+        return UUID.randomUUID().toString();
+    }
+
+    // SHA-256 hex, 64 karakter
+    public static String hash(String token) {
+        return HEX.formatHex(DIGESTS.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.tutorial.restful.api.security;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class SignedTokenService {
+
+    // token stateless yang bisa di verifikasi di memory tanpa query tabel sessions
+    // format: v1.<kid>.<base64url(username)>.<expiredAt>.<base64url(HmacSHA256(v1.<kid>.<username>.<expiredAt>))>
+    //
+    // token tidak di simpan di DB, jadi logout di catat di revocation set (per instance, hanya sampai token expired)
+    // karena token tidak bisa di cabut lewat DB, ganti password tidak membatalkan token lama. untuk itu rotasi key
+
+    private static final String PREFIX = "v1.";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final boolean enabled;
+
+    @Autowired
+    private TokenKeyRing keyRing;
+
+    // signature token yang sudah logout -> expiredAt token, cukup simpan signature (43 karakter) bukan token utuh
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+
+    // Mac tidak thread-safe, jadi satu instance per thread
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    public SignedTokenService(@Value("${app.signed-token.enabled:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    void checkKeyRing() {
+        if (enabled && keyRing.key(keyRing.activeKeyId()) == null) {
+            throw new IllegalStateException("app.signed-token.active-key is not found in the key ring");
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isSignedToken(String token) {
+        return enabled && token.startsWith(PREFIX);
+    }
+
+    public String issue(String username, long expiredAt) {
+        String keyId = keyRing.activeKeyId();
+        String payload = PREFIX + keyId + "." + ENCODER.encodeToString(username.getBytes(StandardCharsets.UTF_8)) + "." + expiredAt;
+
+        return payload + "." + ENCODER.encodeToString(sign(keyRing.key(keyId), payload));
+    }
+
+    // return username jika token valid, belum expired dan belum logout. return null jika tidak valid
+    public String verify(String token) {
+        int signatureStart = token.lastIndexOf('.');
+        if (!token.startsWith(PREFIX) || signatureStart < 0) {
+            return null;
+        }
+
+        String[] parts = token.substring(PREFIX.length(), signatureStart).split("\\.");
+        if (parts.length != 3) {
+            return null;
+        }
+
+        byte[] key = keyRing.key(parts[0]);
+        if (key == null) {
+            return null;
+        }
+
+        long expiredAt;
+        byte[] signature;
+        String username;
+        try {
+            expiredAt = Long.parseLong(parts[2]);
+            signature = DECODER.decode(token.substring(signatureStart + 1));
+            username = new String(DECODER.decode(parts[1]), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        // bandingkan dengan waktu konstan supaya tidak bocor lewat timing
+        if (!MessageDigest.isEqual(signature, sign(key, token.substring(0, signatureStart)))) {
+            return null;
+        }
+
+        if (expiredAt < System.currentTimeMillis() || revoked.containsKey(token.substring(signatureStart + 1))) {
+            return null;
+        }
+
+        return username;
+    }
+
+    public void revoke(String token) {
+        int signatureStart = token.lastIndexOf('.');
+        int expiredAtStart = token.lastIndexOf('.', signatureStart - 1);
+        if (signatureStart < 0 || expiredAtStart < 0) {
+            return;
+        }
+
+        try {
+            revoked.put(token.substring(signatureStart + 1), Long.parseLong(token.substring(expiredAtStart + 1, signatureStart)));
+        } catch (NumberFormatException e) {
+            // token rusak, tidak perlu di cabut
+        }
+    }
+
+    // token yang sudah expired akan di tolak oleh verify(), jadi tidak perlu di simpan lagi di revocation set
+    @Scheduled(fixedDelayString = "${app.signed-token.revocation-purge-interval-ms:60000}")
+    public void purgeRevoked() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiredAt -> expiredAt < now);
+    }
+
+    private byte[] sign(byte[] key, String payload) {
+        try {
+            Mac mac = macs.get();
+            mac.init(new SecretKeySpec(key, ALGORITHM));
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
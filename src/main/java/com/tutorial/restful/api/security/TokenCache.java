@@ -0,0 +1,227 @@
+package com.tutorial.restful.api.security;
+
+import com.tutorial.restful.api.entity.User;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class TokenCache implements MeterBinder {
+
+    // cache in-process untuk hasil resolve X-API-TOKEN -> User
+    // supaya request yang sudah login tidak perlu query sessions setiap kali hit endpoint
+    // key adalah hash token (SessionTokens.hash), supaya logout semua device bisa invalidate dari sessions.token_hash
+    // cache dibatasi jumlah entry (LRU) dan TTL, dan entry tidak pernah lebih lama dari sessions.expired_at
+    // get() ada di setiap request yang sudah login, dan LRU (accessOrder) merubah urutan saat di baca, jadi butuh lock
+    // entry di bagi ke beberapa stripe berdasarkan hash token (sama dengan LoginThrottle), request hanya lock satu stripe
+
+    private final boolean enabled;
+
+    private final long ttlMillis;
+
+    private final Stripe[] stripes;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    public TokenCache(@Value("${app.token-cache.enabled:false}") boolean enabled,
+                      @Value("${app.token-cache.max-size:10000}") int maxSize,
+                      @Value("${app.token-cache.ttl-ms:60000}") long ttlMillis,
+                      @Value("${app.token-cache.stripes:64}") int stripes) {
+        this.enabled = enabled;
+        this.ttlMillis = ttlMillis;
+
+        // jumlah stripe di bulatkan ke pangkat 2 supaya index cukup pakai mask, max-size di bagi rata per stripe
+        int count = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        int maxPerStripe = Math.max(1, maxSize / count);
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe(maxPerStripe, evictions);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // return salinan User dan sessions.expired_at jika token ada di cache dan belum expired. return null jika tidak ada
+    // expired_at di butuhkan UserArgumentResolver untuk sliding expiry (SessionExpiry.touch), cache hit juga memperpanjang session
+    public CachedSession get(String tokenHash) {
+        if (!enabled) {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        Stripe stripe = stripe(tokenHash);
+        Entry entry;
+        synchronized (stripe) {
+            entry = stripe.get(tokenHash);
+            if (entry != null && Math.min(entry.expiresAt, entry.tokenExpiredAt) <= now) {
+                stripe.remove(tokenHash);
+                evictions.incrementAndGet();
+                entry = null;
+            }
+        }
+
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return new CachedSession(copy(entry.user), entry.tokenExpiredAt); // selalu return object baru, karena controller/service bisa merubah field User
+    }
+
+    public void put(String tokenHash, User user, long tokenExpiredAt) {
+        if (!enabled) {
+            return;
+        }
+
+        // entry tidak boleh hidup lebih lama dari token itu sendiri
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        if (tokenExpiredAt <= System.currentTimeMillis()) {
+            return;
+        }
+
+        Entry entry = new Entry(copy(user), expiresAt, tokenExpiredAt);
+        Stripe stripe = stripe(tokenHash);
+        synchronized (stripe) {
+            stripe.put(tokenHash, entry);
+        }
+    }
+
+    // sliding expiry (SessionExpiry.touch) memperpanjang token, entry ikut di perpanjang supaya tidak di buang di expired_at lama
+    // batas ttl-ms entry tidak berubah, data user tetap di ambil ulang dari DB setiap ttl-ms
+    public void extend(String tokenHash, long tokenExpiredAt) {
+        if (!enabled) {
+            return;
+        }
+
+        Stripe stripe = stripe(tokenHash);
+        synchronized (stripe) {
+            Entry entry = stripe.get(tokenHash);
+            if (entry != null && tokenExpiredAt > entry.tokenExpiredAt) {
+                stripe.put(tokenHash, new Entry(entry.user, entry.expiresAt, tokenExpiredAt));
+            }
+        }
+    }
+
+    // dipanggil ketika token tidak berlaku lagi (logout) atau data user berubah (update)
+    public void invalidate(String tokenHash) {
+        if (!enabled || tokenHash == null) {
+            return;
+        }
+
+        remove(tokenHash);
+
+        // request lain bisa saja mengisi cache lagi dengan data lama sebelum transaksi commit
+        // jadi hapus sekali lagi setelah commit
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(tokenHash);
+                }
+            });
+        }
+    }
+
+    private void remove(String tokenHash) {
+        Stripe stripe = stripe(tokenHash);
+        synchronized (stripe) {
+            stripe.remove(tokenHash);
+        }
+    }
+
+    private Stripe stripe(String tokenHash) {
+        int h = tokenHash.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    // hanya untuk metric, jumlah per stripe di baca satu per satu jadi bisa sedikit tidak konsisten
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // counter bisa dilihat di /actuator/metrics/token.cache.hits, dst
+        FunctionCounter.builder("token.cache.hits", this, TokenCache::getHits).register(registry);
+        FunctionCounter.builder("token.cache.misses", this, TokenCache::getMisses).register(registry);
+        FunctionCounter.builder("token.cache.evictions", this, TokenCache::getEvictions).register(registry);
+        Gauge.builder("token.cache.size", this, TokenCache::size).register(registry);
+    }
+
+    private static User copy(User user) {
+        User copy = new User();
+        copy.setUsername(user.getUsername());
+        copy.setPassword(user.getPassword());
+        copy.setName(user.getName());
+        return copy;
+    }
+
+    public record CachedSession(User user, long expiredAt) {
+    }
+
+    // expiresAt = batas ttl-ms entry di cache, tokenExpiredAt = expired_at token (ikut sliding expiry)
+    // entry berlaku sampai yang lebih dulu dari keduanya
+    private record Entry(User user, long expiresAt, long tokenExpiredAt) {
+    }
+
+    // LinkedHashMap(accessOrder = true) // urutan berdasarkan akses terakhir, entry paling lama tidak diakses ada di depan
+    // jika stripe melebihi batas, buang entry yang paling lama tidak diakses
+    private static final class Stripe extends LinkedHashMap<String, Entry> {
+
+        private final int maxSize;
+
+        private final AtomicLong evictions;
+
+        Stripe(int maxSize, AtomicLong evictions) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > maxSize) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+    }
+
+}
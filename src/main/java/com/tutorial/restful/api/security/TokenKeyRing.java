@@ -0,0 +1,13 @@
+package com.tutorial.restful.api.security;
+
+public interface TokenKeyRing {
+
+    // sumber secret key untuk tanda tangan HMAC signed token
+    // setiap key punya id (kid) yang ikut tertulis di token, jadi key bisa di rotasi:
+    // token baru di tanda tangani dengan active key, token lama tetap valid selama key lama masih ada di ring
+
+    String activeKeyId();
+
+    byte[] key(String keyId); // return null jika key id tidak di kenal
+
+}
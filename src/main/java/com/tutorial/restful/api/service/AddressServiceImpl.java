@@ -5,9 +5,11 @@ import com.tutorial.restful.api.dto.CreateAddressRequest;
 import com.tutorial.restful.api.dto.UpdateAddressRequest;
 import com.tutorial.restful.api.entity.Address;
 import com.tutorial.restful.api.entity.Contact;
+import com.tutorial.restful.api.entity.Tombstone;
 import com.tutorial.restful.api.entity.User;
 import com.tutorial.restful.api.repository.AddressRepository;
 import com.tutorial.restful.api.repository.ContactRepository;
+import com.tutorial.restful.api.repository.TombstoneRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -17,8 +19,6 @@ import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -33,6 +33,12 @@ public class AddressServiceImpl implements AddressService {
     @Autowired
     private ValidationService validationService;
 
+    @Autowired
+    private SyncVersions syncVersions;
+
+    @Autowired
+    private TombstoneRepository tombstoneRepository;
+
     @Transactional
     public AddressResponse create(User user, CreateAddressRequest request) {
 
@@ -49,6 +55,8 @@ public class AddressServiceImpl implements AddressService {
         address.setProvince(request.getProvince());
         address.setCountry(request.getCountry());
         address.setPostalCode(request.getPostalCode());
+        address.setUsername(user.getUsername());
+        address.setVersion(syncVersions.next(user.getUsername())); // versi untuk GET /api/contacts/changes
         addressRepository.save(address); // proses DB
 
         return toAddressResponse(address);
@@ -57,15 +65,12 @@ public class AddressServiceImpl implements AddressService {
     @Transactional(readOnly = true)
     public AddressResponse get(User user, String contactId, String addressId) {
 
-        // user many contact
-        Contact contact = contactRepository.findFirstByUserAndId(user, contactId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Contact is not found"));
-
-        // contact many address
-        Address address = addressRepository.findFirstByContactAndId(contact, addressId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Address is not found"));
-
-        return toAddressResponse(address);
+        // user many contact, contact many address. cukup satu query yang langsung select ke AddressResponse
+        // query contact hanya di jalankan jika address tidak ada, untuk membedakan pesan error
+        return addressRepository.findResponse(user.getUsername(), contactId, addressId)
+                .orElseThrow(() -> contactRepository.existsByUserAndId(user, contactId)
+                        ? new ResponseStatusException(HttpStatus.NOT_FOUND, "Address is not found")
+                        : new ResponseStatusException(HttpStatus.NOT_FOUND, "Contact is not found"));
     }
 
     @Transactional
@@ -85,6 +90,8 @@ public class AddressServiceImpl implements AddressService {
         log.info("address id= {}", address.getId());
         log.info("address object= {}", address);
 
+        // versi di ambil sebelum entity di ubah, lock sync_versions user di pegang sampai commit (lihat SyncVersions)
+        address.setVersion(syncVersions.next(user.getUsername()));
         address.setStreet(request.getStreet());
         address.setCity(request.getCity());
         address.setProvince(request.getProvince());
@@ -109,6 +116,16 @@ public class AddressServiceImpl implements AddressService {
         log.info("contact id= {}", contact.getId());
         log.info("address id= {}", address.getId());
 
+        // tombstone supaya client GET /api/contacts/changes tahu address ini di hapus
+        Tombstone tombstone = new Tombstone();
+        tombstone.setId(address.getId());
+        tombstone.setUsername(user.getUsername());
+        tombstone.setVersion(syncVersions.next(user.getUsername()));
+        tombstone.setType(Tombstone.ADDRESS);
+        tombstone.setContactId(contact.getId());
+        tombstone.setDeletedAt(System.currentTimeMillis());
+        tombstoneRepository.save(tombstone);
+
         addressRepository.delete(address); // proses DB
 
     }
@@ -116,29 +133,16 @@ public class AddressServiceImpl implements AddressService {
     @Transactional(readOnly = true)
     public List<AddressResponse> listAddress(User user, String contactId) {
 
-        Contact contact = contactRepository.findFirstByUserAndId(user, contactId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Contact is not found"));
+        // query langsung select ke AddressResponse, jadi tidak perlu konversi entity Address ke AddressResponse
+        List<AddressResponse> list = addressRepository.findResponses(user.getUsername(), contactId);
+
+        // list kosong bisa karena contact tidak punya address, atau contact tidak ada. cek contact hanya di kasus ini
+        if (list.isEmpty() && !contactRepository.existsByUserAndId(user, contactId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Contact is not found");
+        }
+
+        return list;
 
-        List<Address> list = addressRepository.findAllByContact(contact); // karena return value List<T>, kita perlu return entity Address ke AddressResponse. kita perlu menggunakan operasi Function<R,T> dari lambda
-
-        // anonymouse method.
-        // Function<T, R>
-        // R apply(T t);
-        return list.stream().map(new Function<Address, AddressResponse>() {
-            @Override
-            public AddressResponse apply(Address address) {
-                return toAddressResponse(address); // konversi return dari List<Address> ke List<AddressResponse>
-            }
-        }).collect(Collectors.toList());
-
-        // lambda
-        // return list.stream().map(address -> {
-        //    return toAddressResponse(address); // konversi return dari List<Address> ke List<AddressResponse>
-        // }).collect(Collectors.toList());
-
-        // method reference
-        // konversi return dari List<Address> ke List<AddressResponse>
-        //return list.stream().map(this::toAddressResponse).collect(Collectors.toList());
     }
 
     private AddressResponse toAddressResponse(Address address) {
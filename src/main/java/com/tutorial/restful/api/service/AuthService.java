@@ -4,10 +4,14 @@ import com.tutorial.restful.api.dto.LoginUserRequest;
 import com.tutorial.restful.api.dto.TokenResponse;
 import com.tutorial.restful.api.entity.User;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface AuthService {
 
-    TokenResponse login(LoginUserRequest request); // karena login return nya hanya data token dan tokenExpiredAt kita buat TokenResponse
+    CompletableFuture<TokenResponse> login(LoginUserRequest request, String remoteAddress); // remoteAddress untuk LoginThrottle. karena login return nya hanya data token dan tokenExpiredAt kita buat TokenResponse. selesai setelah BCrypt di thread pool PasswordHasher
+
+    void logout(User user, String token); // token dari header X-API-TOKEN, hanya session ini yang di hapus
 
-    void logout(User user);
+    void logoutAll(User user, String token); // hapus semua session milik user (semua device)
 
 }
@@ -2,68 +2,189 @@ package com.tutorial.restful.api.service;
 
 import com.tutorial.restful.api.dto.LoginUserRequest;
 import com.tutorial.restful.api.dto.TokenResponse;
+import com.tutorial.restful.api.entity.Session;
 import com.tutorial.restful.api.entity.User;
+import com.tutorial.restful.api.repository.SessionRepository;
 import com.tutorial.restful.api.repository.UserRepository;
-import com.tutorial.restful.api.security.BCrypt;
+import com.tutorial.restful.api.security.DatabaseExecutor;
+import com.tutorial.restful.api.security.LiveTokenFilter;
+import com.tutorial.restful.api.security.LoginThrottle;
+import com.tutorial.restful.api.security.NegativeTokenCache;
+import com.tutorial.restful.api.security.PasswordHasher;
+import com.tutorial.restful.api.security.SessionExpiry;
+import com.tutorial.restful.api.security.SessionTokens;
+import com.tutorial.restful.api.security.SignedTokenService;
+import com.tutorial.restful.api.security.TokenCache;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.UUID;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+@Slf4j
 @Service
 public class AuthServiceImpl implements AuthService {
 
     @Autowired
     private UserRepository userRepository; // service entity dan spring data jpa
 
+    @Autowired
+    private SessionRepository sessionRepository; // session login per device
+
     @Autowired
     private ValidationService validationService; // service constraint validation
 
-    @Transactional // kita buat behavior menjadi deklaratif
-    public TokenResponse login(LoginUserRequest request) {
+    @Autowired
+    private TokenCache tokenCache; // cache token -> user di UserArgumentResolver
+
+    @Autowired
+    private NegativeTokenCache negativeTokenCache; // cache token yang tidak valid
+
+    @Autowired
+    private LiveTokenFilter liveTokenFilter; // Bloom filter token yang masih aktif
+
+    @Autowired
+    private SignedTokenService signedTokenService; // token stateless yang di verifikasi tanpa DB
+
+    @Autowired
+    private PasswordHasher passwordHasher; // thread pool khusus BCrypt
+
+    @Autowired
+    private DatabaseExecutor databaseExecutor; // thread pool untuk simpan ke DB setelah BCrypt selesai
+
+    @Autowired
+    private LoginThrottle loginThrottle; // rate limit login per username dan remote address
+
+    @Autowired
+    private SessionExpiry sessionExpiry; // ttl token dan sliding expiry
+
+    @Autowired
+    private TransactionTemplate transactionTemplate; // transaksi secara programatik, karena lanjutan login jalan di thread lain
+
+    public CompletableFuture<TokenResponse> login(LoginUserRequest request, String remoteAddress) {
 
         validationService.validate(request); // cek jika ada field yg null // akan menangkap constraint validation
 
+        // tolak dengan 429 sebelum query DB dan BCrypt jika username / address ini sudah terlalu banyak mencoba
+        loginThrottle.acquire(request.getUsername(), remoteAddress);
+
         // cek apakah user ada dengan username di DB
         // jika tidak ada. tingal return Exception username tidak ada. dan beri pesan kesalahan
-        User user = userRepository.findById(request.getUsername())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Username or password wrong"));
+        User user = userRepository.findById(request.getUsername()).orElse(null);
+        if (user == null) {
+            loginThrottle.onFailure(request.getUsername(), remoteAddress); // tebak username juga di hitung gagal
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Username or password wrong");
+        }
 
         // cek password apakah di encript jika iya
-        // beri token dengan UUID dan waktu token Expired
-        if (BCrypt.checkpw(request.getPassword(), user.getPassword())) {
-            user.setToken(UUID.randomUUID().toString());
-            user.setTokenExpiredAt(next2Days());
-            userRepository.save(user);
+        // BCrypt.checkpw di jalankan di thread pool PasswordHasher, thread Tomcat tidak ikut tertahan
+        // simpan token di transaksi pendek setelah password cocok, di thread DatabaseExecutor (bukan thread hashing)
+        return passwordHasher.check(request.getPassword(), user.getPassword())
+                .thenApply(matched -> {
+                    if (!matched) {
+                        loginThrottle.onFailure(request.getUsername(), remoteAddress);
+                        throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Username or password wrong");
+                    }
+                    loginThrottle.onSuccess(request.getUsername(), remoteAddress);
+                    return user;
+                })
+                .thenApplyAsync(matchedUser -> {
+                    String oldPassword = matchedUser.getPassword(); // hash lama untuk conditional update saat rehash
+                    TokenResponse response = transactionTemplate.execute(status -> issueToken(matchedUser));
+                    rehashInBackground(matchedUser.getUsername(), request.getPassword(), oldPassword);
+                    return response;
+                }, databaseExecutor);
+
+    }
 
+    // hash yang tersimpan masih memakai cost lama (sebelum kalibrasi / pindah hardware)
+    // password plain hanya ada saat login, jadi hash ulang di sini tanpa menahan response login
+    private void rehashInBackground(String username, String plaintext, String oldPassword) {
+        if (!passwordHasher.needsRehash(oldPassword)) {
+            return;
+        }
+
+        CompletableFuture<String> rehash = passwordHasher.rehash(plaintext);
+        if (rehash == null) {
+            return; // pool sedang sibuk, coba lagi di login berikutnya
+        }
+
+        rehash.thenAcceptAsync(hashed -> transactionTemplate.executeWithoutResult(status ->
+                        userRepository.updatePassword(username, oldPassword, hashed)), databaseExecutor)
+                .exceptionally(e -> {
+                    log.warn("Rehash password for user {} failed", username, e);
+                    return null;
+                });
+    }
+
+    // beri token dengan UUID dan waktu token Expired
+    // setiap login membuat row sessions baru, session di device lain tetap berlaku dan row users tidak di update
+    private TokenResponse issueToken(User user) {
+
+        // signed token tidak di simpan di sessions, jadi tidak perlu insert apapun
+        if (signedTokenService.isEnabled()) {
+            long expiredAt = sessionExpiry.newExpiredAt();
             return TokenResponse
                     .builder()
-                    .token(user.getToken())
-                    .expiredAt(user.getTokenExpiredAt())
+                    .token(signedTokenService.issue(user.getUsername(), expiredAt))
+                    .expiredAt(expiredAt)
                     .build();
-        } else {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Username or password wrong");
         }
 
+        String token = SessionTokens.newToken();
+
+        Session session = new Session();
+        session.setTokenHash(SessionTokens.hash(token)); // yang di simpan hanya hash, token asli hanya di kirim ke client
+        session.setUser(user);
+        session.setCreatedAt(System.currentTimeMillis());
+        session.setExpiredAt(sessionExpiry.newExpiredAt()); // app.session.ttl-ms, default 2 hari
+        sessionRepository.save(session);
+        liveTokenFilter.put(session.getTokenHash());
+
+        return TokenResponse
+                .builder()
+                .token(token)
+                .expiredAt(session.getExpiredAt())
+                .build();
     }
 
-    private long next2Days() {
-        // waktu 2 hari dalam milisecond
-        return System.currentTimeMillis() + (1000 * 16 * 24 * 2);
+    // logout session (device) yang sedang di pakai saja
+    @Transactional
+    public void logout(User user, String token) {
+        // signed token tidak ada di DB, cukup di catat di revocation set
+        if (signedTokenService.isSignedToken(token)) {
+            signedTokenService.revoke(token);
+            return;
+        }
+
+        String tokenHash = SessionTokens.hash(token);
+        sessionRepository.deleteByTokenHash(tokenHash); // 0 row jika logout lain sudah lebih dulu, tetap OK
+        revoke(tokenHash);
     }
 
+    // logout semua session (semua device) milik user
+    // signed token tidak ada di DB, jadi hanya signed token yang sedang di pakai yang bisa di cabut
     @Transactional
-    public void logout(User user) {
-        // karena user yang login punya token dan tokenExpireAt kita tinggal replace saja
-        user.setToken(null);
-        user.setTokenExpiredAt(null);
+    public void logoutAll(User user, String token) {
+        if (signedTokenService.isSignedToken(token)) {
+            signedTokenService.revoke(token);
+        }
 
-        userRepository.save(user);
+        List<String> tokenHashes = sessionRepository.findTokenHashesByUsername(user.getUsername());
+        sessionRepository.deleteAllByUsername(user.getUsername());
+        tokenHashes.forEach(this::revoke);
     }
 
-
+    // token langsung tidak berlaku di memory, jangan tunggu TTL cache
+    private void revoke(String tokenHash) {
+        tokenCache.invalidate(tokenHash);
+        negativeTokenCache.put(tokenHash); // Bloom filter tidak bisa hapus token, jadi tolak lewat negative cache
+        sessionExpiry.forget(tokenHash);
+    }
 
 }
@@ -0,0 +1,43 @@
+package com.tutorial.restful.api.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public record ChangeCursor(long version, String id) {
+
+    // posisi terakhir client di GET /api/contacts/changes?since=..., (version, id) perubahan terakhir yang sudah di terima
+    // di encode base64url supaya opaque untuk client, format sebelum di encode: <version>\n<id>
+
+    // belum pernah sync: semua row termasuk yang version 0 (di buat sebelum kolom version ada)
+    public static final ChangeCursor START = new ChangeCursor(-1, "");
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    // since kosong artinya dari awal
+    public static ChangeCursor decode(String since) {
+        if (since == null || since.isEmpty()) {
+            return START;
+        }
+
+        try {
+            String payload = new String(DECODER.decode(since), StandardCharsets.UTF_8);
+            int separator = payload.indexOf('\n');
+            if (separator <= 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid since");
+            }
+            return new ChangeCursor(Long.parseLong(payload.substring(0, separator)), payload.substring(separator + 1));
+        } catch (IllegalArgumentException e) { // base64 / angka tidak valid
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid since");
+        }
+    }
+
+    public String encode() {
+        return ENCODER.encodeToString((version + "\n" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.tutorial.restful.api.service;
+
+import com.tutorial.restful.api.dto.ContactResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public record ContactCursor(String sort, String value, String id) {
+
+    // cursor untuk keyset pagination GET /api/contacts?after=...
+    // isinya sort, nilai sort key dan id contact terakhir di halaman sebelumnya, di encode base64url supaya opaque untuk client
+    // format sebelum di encode: <id>\n<sort>\n<value>. value di awali "=" supaya null (kolom kosong) beda dengan string kosong
+    // id selalu UUID dari server dan sort dari whitelist ContactSort jadi tidak mungkin ada \n di dalamnya
+    // format lama <id>\n<firstName> tetap di terima sebagai sort firstName,asc
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    public static ContactCursor after(ContactSort sort, ContactResponse contact) {
+        return new ContactCursor(sort.toString(), sort.value(contact), contact.getId());
+    }
+
+    // cursor kosong artinya halaman pertama, return null
+    // cursor dari sort lain di tolak, karena posisinya tidak berarti untuk urutan yang di minta
+    public static ContactCursor decode(String cursor, ContactSort sort) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+
+        String payload;
+        try {
+            payload = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+
+        int separator = payload.indexOf('\n');
+        if (separator <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+        String id = payload.substring(0, separator);
+        String rest = payload.substring(separator + 1);
+
+        ContactCursor decoded;
+        int valueSeparator = rest.indexOf('\n');
+        if (valueSeparator < 0) {
+            decoded = new ContactCursor(ContactSort.FIRST_NAME.toString(), rest, id);
+        } else {
+            String value = rest.substring(valueSeparator + 1);
+            if (!value.isEmpty() && value.charAt(0) != '=') {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+            decoded = new ContactCursor(rest.substring(0, valueSeparator), value.isEmpty() ? null : value.substring(1), id);
+        }
+
+        if (!decoded.sort().equals(sort.toString())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+        return decoded;
+    }
+
+    public String encode() {
+        return ENCODER.encodeToString((id + "\n" + sort + "\n" + (value == null ? "" : "=" + value)).getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,587 @@
+package com.tutorial.restful.api.service;
+
+import com.tutorial.restful.api.entity.Contact;
+import com.tutorial.restful.api.repository.ContactRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+public class ContactSearchIndex implements MeterBinder {
+
+    // filter name / email / phone di search() jadi LIKE '%...%', InnoDB tidak bisa pakai index untuk itu
+    // jadi setiap search scan semua contact milik user
+    //
+    // index ini menyimpan trigram (3 karakter berurutan) dari first_name, last_name, email dan phone, di pisah per username
+    // posting list (doc yang mengandung trigram) berupa int[] yang selalu urut, jadi irisan (AND) cukup merge
+    // hasil irisan hanya kandidat, tetap di cek contains() di memory supaya hasilnya sama dengan LIKE (lihat normalize())
+    // MySQL hanya di query untuk contact di halaman yang di minta, berdasarkan primary key
+    //
+    // index user di bangun di thread pool sendiri saat search pertama user tersebut, lalu di update per contact setelah commit (create / update / delete)
+    // selama index belum selesai di bangun search() return null dan request memakai query SQL biasa, request tidak pernah menunggu build
+    // jumlah user yang di simpan di batasi (LRU), user yang di buang akan di bangun ulang saat search berikutnya
+    // index yang umurnya lebih dari ttl-ms juga di bangun ulang, supaya perubahan dari instance lain tetap muncul
+
+    private static final int FIRST_NAME = 0;
+
+    private static final int LAST_NAME = 1;
+
+    private static final int EMAIL = 2;
+
+    private static final int PHONE = 3;
+
+    private final boolean enabled;
+
+    private final int maxUsers;
+
+    private final long ttlMs;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ThreadPoolExecutor buildExecutor;
+
+    // LinkedHashMap(accessOrder = true), user yang paling lama tidak search ada di depan
+    private final LinkedHashMap<String, UserIndex> users;
+
+    private final AtomicLong searches = new AtomicLong();
+
+    private final AtomicLong builds = new AtomicLong();
+
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    public ContactSearchIndex(@Value("${app.contact-index.enabled:false}") boolean enabled,
+                              @Value("${app.contact-index.max-users:1000}") int maxUsers,
+                              @Value("${app.contact-index.ttl-ms:300000}") long ttlMs,
+                              @Value("${app.contact-index.build-threads:2}") int buildThreads,
+                              PlatformTransactionManager transactionManager) {
+        this.enabled = enabled;
+        this.maxUsers = maxUsers;
+        this.ttlMs = ttlMs;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.users = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, UserIndex> eldest) {
+                return size() > ContactSearchIndex.this.maxUsers;
+            }
+        };
+
+        // satu build per user yang ada di cache, jadi antrian tidak perlu lebih dari max-users
+        AtomicInteger counter = new AtomicInteger();
+        this.buildExecutor = new ThreadPoolExecutor(
+                buildThreads,
+                buildThreads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxUsers)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "contact-index-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // return id contact milik username yang cocok dengan semua filter (null = tidak di filter), urut berdasarkan id
+    // return null jika index user belum siap, caller harus pakai query SQL
+    // domain sudah huruf kecil tanpa '@', phone dan phoneSuffix sudah berupa angka saja (Contact.phoneDigits)
+    // string kosong untuk domain / phone / phoneSuffix artinya tidak cocok dengan contact mana pun
+    public String[] search(String username, String name, String email, String domain, String phone, String phoneSuffix) {
+        UserIndex index;
+        synchronized (users) {
+            index = users.get(username);
+            // index lama di ganti index kosong, put() / remove() yang datang setelah ini masuk ke index baru
+            if (index == null || index.isExpired(ttlMs)) {
+                index = new UserIndex();
+                users.put(username, index);
+            }
+        }
+
+        if (!index.built) {
+            startBuild(username, index);
+            fallbacks.incrementAndGet();
+            return null;
+        }
+
+        searches.incrementAndGet();
+        return index.search(normalize(name), normalize(email), normalize(domain), phone, phoneSuffix);
+    }
+
+    // dipanggil setelah contact di simpan (create / update), index di update setelah transaksi commit
+    public void put(Contact contact) {
+        if (!enabled) {
+            return;
+        }
+
+        String username = contact.getUser().getUsername();
+        String id = contact.getId();
+        String[] values = {normalize(contact.getFirstName()), normalize(contact.getLastName()), normalize(contact.getEmail()), Contact.phoneDigits(contact.getPhone())};
+
+        afterCommit(() -> {
+            UserIndex index = loaded(username);
+            if (index != null) {
+                index.put(id, values, false);
+            }
+        });
+    }
+
+    public void remove(String username, String contactId) {
+        if (!enabled) {
+            return;
+        }
+
+        afterCommit(() -> {
+            UserIndex index = loaded(username);
+            if (index != null) {
+                index.remove(contactId);
+            }
+        });
+    }
+
+    // buang index user, di bangun ulang dari DB saat search berikutnya. untuk perubahan yang tidak lewat put() / remove()
+    public void invalidate(String username) {
+        if (!enabled) {
+            return;
+        }
+
+        afterCommit(() -> {
+            synchronized (users) {
+                users.remove(username);
+            }
+        });
+    }
+
+    public int size() {
+        synchronized (users) {
+            return users.size();
+        }
+    }
+
+    public long getSearches() {
+        return searches.get();
+    }
+
+    public long getBuilds() {
+        return builds.get();
+    }
+
+    public long getFallbacks() {
+        return fallbacks.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("contact.index.searches", this, ContactSearchIndex::getSearches).register(registry);
+        FunctionCounter.builder("contact.index.builds", this, ContactSearchIndex::getBuilds).register(registry);
+        FunctionCounter.builder("contact.index.fallbacks", this, ContactSearchIndex::getFallbacks).register(registry);
+        Gauge.builder("contact.index.users", this, ContactSearchIndex::size).register(registry);
+    }
+
+    private UserIndex loaded(String username) {
+        synchronized (users) {
+            return users.get(username);
+        }
+    }
+
+    // hanya satu build per index user, search lain selama build tetap pakai SQL
+    private void startBuild(String username, UserIndex index) {
+        if (!index.buildStarted.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            buildExecutor.execute(() -> build(username, index));
+        } catch (RejectedExecutionException e) {
+            index.buildStarted.set(false); // antrian penuh, di coba lagi saat search berikutnya
+        }
+    }
+
+    private void build(String username, UserIndex index) {
+        long started = System.currentTimeMillis();
+        AtomicLong loaded = new AtomicLong();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = contactRepository.streamSearchFields(username)) {
+                    rows.forEach(row -> {
+                        index.put((String) row[0],
+                                new String[]{normalize((String) row[1]), normalize((String) row[2]), normalize((String) row[3]), (String) row[4]},
+                                true);
+                        loaded.incrementAndGet();
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            // index setengah jadi di buang, search berikutnya membuat index baru dan build ulang
+            log.warn("Contact search index for {} failed to build", username, e);
+            synchronized (users) {
+                users.remove(username, index);
+            }
+            return;
+        }
+        index.finishBuild();
+        builds.incrementAndGet();
+
+        log.info("Contact search index for {} built with {} contacts in {} ms", username, loaded.get(), System.currentTimeMillis() - started);
+    }
+
+    // update index setelah commit, supaya data yang di rollback tidak pernah masuk index
+    private static void afterCommit(Runnable runnable) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    runnable.run();
+                }
+            });
+        } else {
+            runnable.run();
+        }
+    }
+
+    // LIKE di MySQL (collation utf8mb4_0900_ai_ci) tidak membedakan huruf besar kecil dan aksen, "jose" cocok dengan "José"
+    // jadi aksen di buang (NFD lalu hapus combining mark) dan huruf di kecilkan
+    // ligatur seperti "ß" = "ss" atau "æ" = "ae" tidak di samakan, untuk huruf seperti itu hasilnya bisa beda dengan DB
+    static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String stripped = Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+        return stripped.toLowerCase(Locale.ROOT);
+    }
+
+    static final class UserIndex {
+
+        private final AtomicBoolean buildStarted = new AtomicBoolean();
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private volatile boolean built;
+
+        private volatile long builtAt;
+
+        // contact yang di hapus selama index masih di bangun, supaya tidak masuk lagi dari hasil query yang lebih lama
+        private Set<String> removedWhileBuilding = new HashSet<>();
+
+        // id contact -> doc id. doc id hanya naik, update contact = doc lama mati + doc baru
+        private final Map<String, Integer> docs = new HashMap<>();
+
+        private String[] ids = new String[64];
+
+        // [first_name, last_name, email, phone_digits] huruf kecil per doc, untuk cek contains()
+        private String[][] values = new String[64][];
+
+        private final BitSet live = new BitSet();
+
+        private int nextDoc;
+
+        private final Map<Long, Postings> postings = new HashMap<>();
+
+        // fromBuild true artinya data dari query build, kalah dengan put() / remove() yang terjadi selama build
+        void put(String id, String[] fields, boolean fromBuild) {
+            lock.writeLock().lock();
+            try {
+                if (fromBuild && (docs.containsKey(id) || removedWhileBuilding.contains(id))) {
+                    return;
+                }
+
+                Integer old = docs.get(id);
+                if (old != null) {
+                    live.clear(old);
+                }
+
+                add(id, fields);
+                compactIfNeeded();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(String id) {
+            lock.writeLock().lock();
+            try {
+                Integer old = docs.remove(id);
+                if (old != null) {
+                    live.clear(old);
+                }
+                if (!built) {
+                    removedWhileBuilding.add(id);
+                }
+                compactIfNeeded();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void finishBuild() {
+            lock.writeLock().lock();
+            try {
+                removedWhileBuilding = null;
+                builtAt = System.currentTimeMillis();
+                built = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // index yang masih di bangun tidak pernah expired, ttl 0 atau kurang = tidak pernah expired
+        boolean isExpired(long ttlMs) {
+            return built && ttlMs > 0 && System.currentTimeMillis() - builtAt >= ttlMs;
+        }
+
+        String[] search(String name, String email, String domain, String phone, String phoneSuffix) {
+            // sama dengan search di DB, filter phone tanpa angka atau domain kosong tidak cocok dengan contact mana pun
+            if ("".equals(domain) || "".equals(phone) || "".equals(phoneSuffix)) {
+                return new String[0];
+            }
+
+            lock.readLock().lock();
+            try {
+                // null artinya semua doc masih kandidat (filter tidak ada atau kurang dari 3 karakter)
+                int[] candidates = null;
+                if (name != null) {
+                    candidates = intersect(candidates, union(match(FIRST_NAME, name), match(LAST_NAME, name)));
+                }
+                if (email != null) {
+                    candidates = intersect(candidates, match(EMAIL, email));
+                }
+                if (domain != null) {
+                    candidates = intersect(candidates, match(EMAIL, "@" + domain));
+                }
+                if (phone != null) {
+                    candidates = intersect(candidates, match(PHONE, phone));
+                }
+                if (phoneSuffix != null) {
+                    candidates = intersect(candidates, match(PHONE, phoneSuffix));
+                }
+
+                List<String> result = new ArrayList<>();
+                int count = candidates == null ? nextDoc : candidates.length;
+                for (int i = 0; i < count; i++) {
+                    int doc = candidates == null ? i : candidates[i];
+                    if (!live.get(doc)) {
+                        continue;
+                    }
+
+                    String[] fields = values[doc];
+                    if (name != null && !contains(fields[FIRST_NAME], name) && !contains(fields[LAST_NAME], name)) {
+                        continue;
+                    }
+                    if (email != null && !contains(fields[EMAIL], email)) {
+                        continue;
+                    }
+                    if (domain != null && !domain.equals(Contact.emailDomain(fields[EMAIL]))) {
+                        continue;
+                    }
+                    if (phone != null && !contains(fields[PHONE], phone)) {
+                        continue;
+                    }
+                    if (phoneSuffix != null && (fields[PHONE] == null || !fields[PHONE].endsWith(phoneSuffix))) {
+                        continue;
+                    }
+                    result.add(ids[doc]);
+                }
+
+                String[] sorted = result.toArray(new String[0]);
+                Arrays.sort(sorted);
+                return sorted;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // doc yang mengandung semua trigram dari query di field tersebut
+        private int[] match(int field, String query) {
+            if (query.length() < 3) {
+                return null;
+            }
+
+            List<Postings> lists = new ArrayList<>();
+            for (int i = 0; i + 3 <= query.length(); i++) {
+                Postings list = postings.get(trigram(field, query, i));
+                if (list == null) {
+                    return new int[0]; // ada trigram yang tidak pernah muncul, pasti tidak ada yang cocok
+                }
+                lists.add(list);
+            }
+
+            // mulai dari posting list terpendek supaya hasil irisan cepat mengecil
+            lists.sort((a, b) -> Integer.compare(a.size, b.size));
+            int[] result = Arrays.copyOf(lists.get(0).docs, lists.get(0).size);
+            for (int i = 1; i < lists.size() && result.length > 0; i++) {
+                result = intersect(result, Arrays.copyOf(lists.get(i).docs, lists.get(i).size));
+            }
+            return result;
+        }
+
+        private void add(String id, String[] fields) {
+            int doc = nextDoc++;
+            if (doc == ids.length) {
+                ids = Arrays.copyOf(ids, doc * 2);
+                values = Arrays.copyOf(values, doc * 2);
+            }
+
+            ids[doc] = id;
+            values[doc] = fields;
+            live.set(doc);
+            docs.put(id, doc);
+
+            for (int field = 0; field < fields.length; field++) {
+                String value = fields[field];
+                if (value == null) {
+                    continue;
+                }
+                for (int i = 0; i + 3 <= value.length(); i++) {
+                    postings.computeIfAbsent(trigram(field, value, i), key -> new Postings()).add(doc);
+                }
+            }
+        }
+
+        // doc mati (update / delete) tetap ada di posting list sampai compaction
+        // jika doc mati lebih banyak dari doc hidup, bangun ulang posting list dari doc yang masih hidup
+        private void compactIfNeeded() {
+            int alive = docs.size();
+            int dead = nextDoc - alive;
+            if (dead < 1024 || dead < alive) {
+                return;
+            }
+
+            String[] oldIds = ids;
+            String[][] oldValues = values;
+            BitSet oldLive = (BitSet) live.clone();
+            int oldNextDoc = nextDoc;
+
+            ids = new String[Math.max(64, alive * 2)];
+            values = new String[ids.length][];
+            live.clear();
+            nextDoc = 0;
+            docs.clear();
+            postings.clear();
+
+            for (int doc = oldLive.nextSetBit(0); doc >= 0 && doc < oldNextDoc; doc = oldLive.nextSetBit(doc + 1)) {
+                add(oldIds[doc], oldValues[doc]);
+            }
+        }
+
+        private static long trigram(int field, String value, int start) {
+            return ((long) field << 48) | ((long) value.charAt(start) << 32) | ((long) value.charAt(start + 1) << 16) | value.charAt(start + 2);
+        }
+
+        private static boolean contains(String value, String query) {
+            return value != null && value.contains(query);
+        }
+
+        // irisan dua array urut, null artinya semua doc
+        private static int[] intersect(int[] a, int[] b) {
+            if (a == null) {
+                return b;
+            }
+            if (b == null) {
+                return a;
+            }
+
+            int[] result = new int[Math.min(a.length, b.length)];
+            int i = 0, j = 0, n = 0;
+            while (i < a.length && j < b.length) {
+                if (a[i] < b[j]) {
+                    i++;
+                } else if (a[i] > b[j]) {
+                    j++;
+                } else {
+                    result[n++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, n);
+        }
+
+        // gabungan dua array urut tanpa duplikat, null artinya semua doc
+        private static int[] union(int[] a, int[] b) {
+            if (a == null || b == null) {
+                return null;
+            }
+
+            int[] result = new int[a.length + b.length];
+            int i = 0, j = 0, n = 0;
+            while (i < a.length || j < b.length) {
+                if (j == b.length || (i < a.length && a[i] < b[j])) {
+                    result[n++] = a[i++];
+                } else if (i == a.length || b[j] < a[i]) {
+                    result[n++] = b[j++];
+                } else {
+                    result[n++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(result, n);
+        }
+
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        buildExecutor.shutdown();
+    }
+
+    // posting list satu trigram, doc id selalu di tambah dengan urutan naik jadi array selalu urut
+    static final class Postings {
+
+        private int[] docs = new int[4];
+
+        private int size;
+
+        void add(int doc) {
+            // trigram yang muncul 2x di value yang sama cukup di catat sekali
+            if (size > 0 && docs[size - 1] == doc) {
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+
+    }
+
+}
@@ -1,23 +1,48 @@
 package com.tutorial.restful.api.service;
 
+import com.tutorial.restful.api.dto.BulkContactResponse;
+import com.tutorial.restful.api.dto.BulkDeleteContactRequest;
+import com.tutorial.restful.api.dto.BulkDeleteContactResponse;
+import com.tutorial.restful.api.dto.ContactChangesResponse;
 import com.tutorial.restful.api.dto.ContactResponse;
 import com.tutorial.restful.api.dto.CreateContactRequest;
+import com.tutorial.restful.api.dto.ImportContactResponse;
 import com.tutorial.restful.api.dto.SearchContactRequest;
 import com.tutorial.restful.api.dto.UpdateContactRequest;
 import com.tutorial.restful.api.entity.User;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
 
 public interface ContactService {
 
     ContactResponse create(User user, CreateContactRequest request);
 
+    List<BulkContactResponse> createBulk(User user, List<CreateContactRequest> requests);
+
     ContactResponse get(User user, String id);
 
     ContactResponse update(User user, UpdateContactRequest request);
 
     void delete(User user, String contactId);
 
+    BulkDeleteContactResponse deleteBulk(User user, BulkDeleteContactRequest request);
+
     Page<ContactResponse> search(User user, SearchContactRequest request);
 
+    void export(User user, OutputStream output) throws IOException;
+
+    ImportContactResponse importCsv(User user, InputStream input) throws IOException;
+
+    ContactChangesResponse changes(User user, String since, Integer size);
+
+    Slice<ContactResponse> searchAfter(User user, SearchContactRequest request);
+
+    Slice<ContactResponse> searchSlice(User user, SearchContactRequest request);
+
 
 }
@@ -1,33 +1,70 @@
 package com.tutorial.restful.api.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tutorial.restful.api.dto.AddressChangeResponse;
+import com.tutorial.restful.api.dto.BulkContactResponse;
+import com.tutorial.restful.api.dto.BulkDeleteContactRequest;
+import com.tutorial.restful.api.dto.BulkDeleteContactResponse;
+import com.tutorial.restful.api.dto.ContactChangesResponse;
 import com.tutorial.restful.api.dto.ContactResponse;
 import com.tutorial.restful.api.dto.CreateContactRequest;
+import com.tutorial.restful.api.dto.DeletedResponse;
+import com.tutorial.restful.api.dto.ImportContactError;
+import com.tutorial.restful.api.dto.ImportContactResponse;
 import com.tutorial.restful.api.dto.SearchContactRequest;
 import com.tutorial.restful.api.dto.UpdateContactRequest;
 import com.tutorial.restful.api.entity.Contact;
+import com.tutorial.restful.api.entity.Tombstone;
 import com.tutorial.restful.api.entity.User;
+import com.tutorial.restful.api.repository.AddressRepository;
 import com.tutorial.restful.api.repository.ContactRepository;
+import com.tutorial.restful.api.repository.TombstoneRepository;
 import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.validation.ConstraintViolationException;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -36,9 +73,62 @@ public class ContactServiceImpl implements ContactService {
     @Autowired
     private ContactRepository contactRepository;
 
+    @Autowired
+    private AddressRepository addressRepository;
+
     @Autowired
     private ValidationService validationService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SearchCountExecutor searchCountExecutor;
+
+    @Autowired
+    private ContactSearchIndex contactSearchIndex;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    // specification: filter hanya LIKE '%...%'. fulltext: tambah MATCH ... AGAINST supaya MySQL bisa pakai FULLTEXT index (ngram) di database.sql
+    @Value("${app.contact-search.strategy:specification}")
+    private String searchStrategy;
+
+    // harus sama dengan ngram_token_size MySQL, query yang lebih pendek tidak menghasilkan token jadi tetap LIKE saja
+    @Value("${app.contact-search.ngram-token-size:2}")
+    private int ngramTokenSize;
+
+    @Value("${app.contact-bulk.max-items:10000}")
+    private int bulkMaxItems;
+
+    // jumlah contact per transaksi di createBulk()
+    @Value("${app.contact-bulk.chunk-size:500}")
+    private int bulkChunkSize;
+
+    // maksimal detail error di response POST /api/contacts/import
+    @Value("${app.contact-import.max-errors:1000}")
+    private int importMaxErrors;
+
+    // panjang maksimal satu field CSV yang di tampung, lebih dari @Size(max = 100) jadi tetap gagal validasi
+    private static final int IMPORT_MAX_FIELD_LENGTH = 1000;
+
+    // query: ... like ? escape '!', lihat contains()
+    private static final char LIKE_ESCAPE = '!';
+
+    @Autowired
+    private SyncVersions syncVersions;
+
+    @Autowired
+    private TombstoneRepository tombstoneRepository;
+
+    // maksimal row per response GET /api/contacts/changes
+    @Value("${app.contact-sync.max-size:1000}")
+    private int syncMaxSize;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate; // transaksi secara programatik, satu transaksi per chunk di createBulk() / importCsv()
+
     @Transactional
     public ContactResponse create(User user, CreateContactRequest request) {
 
@@ -51,12 +141,217 @@ public class ContactServiceImpl implements ContactService {
         contact.setEmail(request.getEmail());
         contact.setPhone(request.getPhone());
         contact.setUser(user);
+        contact.setVersion(syncVersions.next(user.getUsername())); // versi untuk GET /api/contacts/changes
 
         contactRepository.save(contact); // save DB
+        contactSearchIndex.put(contact); // update index search setelah commit
+        searchResultCache.invalidate(user.getUsername()); // hasil search user ini yang ada di cache basi setelah commit
 
         return toContactResponse(contact);
     }
 
+    // tanpa @Transactional: satu transaksi per chunk (insertChunk), jadi lock dan undo log tidak menumpuk untuk puluhan ribu row
+    // item yang tidak valid tidak menggagalkan item lain, hasilnya di laporkan per item dengan urutan yang sama dengan request
+    public List<BulkContactResponse> createBulk(User user, List<CreateContactRequest> requests) {
+
+        if (requests.size() > bulkMaxItems) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Too many contacts, maximum is " + bulkMaxItems);
+        }
+
+        List<BulkContactResponse> results = new ArrayList<>(requests.size());
+        List<Contact> chunk = new ArrayList<>(bulkChunkSize);
+        List<BulkContactResponse> chunkResults = new ArrayList<>(bulkChunkSize);
+
+        for (int i = 0; i < requests.size(); i++) {
+            CreateContactRequest request = requests.get(i);
+            BulkContactResponse result = BulkContactResponse.builder().index(i).build();
+            results.add(result);
+
+            if (Objects.isNull(request)) {
+                result.setErrors("Contact is required");
+                continue;
+            }
+            try {
+                validationService.validate(request); // tangkap constraint validation
+            } catch (ConstraintViolationException e) {
+                result.setErrors(e.getMessage());
+                continue;
+            }
+
+            Contact contact = new Contact();
+            contact.setId(UUID.randomUUID().toString());
+            contact.setFirstName(request.getFirstName());
+            contact.setLastName(request.getLastName());
+            contact.setEmail(request.getEmail());
+            contact.setPhone(request.getPhone());
+            contact.setUser(user);
+
+            result.setId(contact.getId());
+            chunk.add(contact);
+            chunkResults.add(result);
+
+            if (chunk.size() == bulkChunkSize) {
+                insertChunk(user, chunk, chunkResults);
+                chunk = new ArrayList<>(bulkChunkSize);
+                chunkResults = new ArrayList<>(bulkChunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertChunk(user, chunk, chunkResults);
+        }
+
+        return results;
+    }
+
+    private void insertChunk(User user, List<Contact> contacts, List<BulkContactResponse> results) {
+        if (!insertChunk(user, contacts)) {
+            for (BulkContactResponse result : results) {
+                result.setId(null);
+                result.setErrors("Failed to save contact");
+            }
+        }
+    }
+
+    // INSERT satu chunk dalam satu transaksi. return false jika gagal, hanya chunk ini yang di rollback (chunk sebelumnya sudah commit)
+    private boolean insertChunk(User user, List<Contact> contacts) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                long version = syncVersions.next(user.getUsername()); // satu versi untuk semua contact di chunk ini
+                contacts.forEach(contact -> contact.setVersion(version));
+                contactRepository.insertAll(contacts); // persist + flush, INSERT di kirim per batch
+                // banyak contact sekaligus, index search user di bangun ulang saja (bukan put() satu per satu)
+                contactSearchIndex.invalidate(user.getUsername());
+                searchResultCache.invalidate(user.getUsername());
+            });
+            return true;
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Bulk insert of {} contacts for {} failed", contacts.size(), user.getUsername(), e);
+            return false;
+        }
+    }
+
+    // tanpa @Transactional, sama dengan createBulk(): satu transaksi per chunk dan chunk yang sudah commit tidak di rollback
+    // CSV di baca satu record per langkah dari stream request, yang di tampung hanya satu chunk + daftar error (di batasi),
+    // jadi memory tidak tergantung ukuran file
+    @Override
+    public ImportContactResponse importCsv(User user, InputStream input) throws IOException {
+
+        CsvReader reader = new CsvReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), IMPORT_MAX_FIELD_LENGTH);
+
+        List<String> header = reader.next();
+        if (header == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV is empty");
+        }
+        // posisi kolom berdasarkan nama header (tidak case sensitive), urutan kolom bebas
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("firstname")) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "CSV header must contain firstName");
+        }
+
+        long imported = 0;
+        long failed = 0;
+        List<ImportContactError> errors = new ArrayList<>();
+        List<Contact> chunk = new ArrayList<>(bulkChunkSize);
+        List<Long> chunkLines = new ArrayList<>(bulkChunkSize);
+
+        List<String> row;
+        while ((row = reader.next()) != null) {
+            long line = reader.getRecordLine();
+
+            String error = null;
+            if (reader.isMalformed()) {
+                error = "Unterminated quoted field";
+            } else if (reader.isTooLong()) {
+                error = "Field is too long";
+            } else if (row.size() != header.size()) {
+                error = "Expected " + header.size() + " columns but found " + row.size();
+            }
+
+            CreateContactRequest request = null;
+            if (error == null) {
+                request = CreateContactRequest.builder()
+                        .firstName(column(row, columns, "firstname"))
+                        .lastName(column(row, columns, "lastname"))
+                        .email(column(row, columns, "email"))
+                        .phone(column(row, columns, "phone"))
+                        .build();
+                try {
+                    validationService.validate(request); // tangkap constraint validation
+                } catch (ConstraintViolationException e) {
+                    error = e.getMessage();
+                }
+            }
+            if (error != null) {
+                failed++;
+                addImportError(errors, line, error);
+                continue;
+            }
+
+            Contact contact = new Contact();
+            contact.setId(UUID.randomUUID().toString());
+            contact.setFirstName(request.getFirstName());
+            contact.setLastName(request.getLastName());
+            contact.setEmail(request.getEmail());
+            contact.setPhone(request.getPhone());
+            contact.setUser(user);
+            chunk.add(contact);
+            chunkLines.add(line);
+
+            if (chunk.size() == bulkChunkSize) {
+                if (importChunk(user, chunk, chunkLines, errors)) {
+                    imported += chunk.size();
+                } else {
+                    failed += chunk.size();
+                }
+                chunk = new ArrayList<>(bulkChunkSize);
+                chunkLines = new ArrayList<>(bulkChunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            if (importChunk(user, chunk, chunkLines, errors)) {
+                imported += chunk.size();
+            } else {
+                failed += chunk.size();
+            }
+        }
+
+        return ImportContactResponse.builder()
+                .imported(imported)
+                .failed(failed)
+                .errors(errors)
+                .build();
+    }
+
+    // jika chunk gagal di simpan, semua baris di chunk ini masuk daftar error
+    private boolean importChunk(User user, List<Contact> contacts, List<Long> lines, List<ImportContactError> errors) {
+        if (insertChunk(user, contacts)) {
+            return true;
+        }
+        for (Long line : lines) {
+            addImportError(errors, line, "Failed to save contact");
+        }
+        return false;
+    }
+
+    // nilai kolom dari row, kolom yang tidak ada di header / kosong jadi null
+    private String column(List<String> row, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null) {
+            return null;
+        }
+        String value = row.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private void addImportError(List<ImportContactError> errors, long line, String error) {
+        if (errors.size() < importMaxErrors) {
+            errors.add(ImportContactError.builder().line(line).errors(error).build());
+        }
+    }
+
     // method response Contact Response
     private ContactResponse toContactResponse(Contact contact) {
         return ContactResponse.builder()
@@ -71,11 +366,10 @@ public class ContactServiceImpl implements ContactService {
     @Transactional(readOnly = true) // readOnly() = true Bendera boolean yang dapat disetel ke true jika transaksi hanya dapat dibaca secara efektif, memungkinkan pengoptimalan yang sesuai saat runtime.
     public ContactResponse get(User user, String id) {
 
-        Contact contact = contactRepository.findFirstByUserAndId(user, id)
+        // select kolom response saja, tanpa membuat entity Contact dan load User
+        return contactRepository.findResponseByUsernameAndId(user.getUsername(), id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Contact not found"));
 
-        return toContactResponse(contact);
-
     }
 
     @Transactional
@@ -87,11 +381,14 @@ public class ContactServiceImpl implements ContactService {
         Contact contact = contactRepository.findFirstByUserAndId(user, request.getId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Contact not found"));
 
+        contact.setVersion(syncVersions.next(user.getUsername()));
         contact.setFirstName(request.getFirstName());
         contact.setLastName(request.getLastName());
         contact.setEmail(request.getEmail());
         contact.setPhone(request.getPhone());
         contactRepository.save(contact); // save DB
+        contactSearchIndex.put(contact); // update index search setelah commit
+        searchResultCache.invalidate(user.getUsername()); // hasil search user ini yang ada di cache basi setelah commit
 
         return toContactResponse(contact);
     }
@@ -102,14 +399,414 @@ public class ContactServiceImpl implements ContactService {
         Contact contact = contactRepository.findFirstByUserAndId(user, contactId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Contact not found"));
 
+        insertTombstones(user, List.of(contact.getId()));
+
+        // address contact ini di hapus dulu, kalau tidak DELETE contact gagal di foreign key fk_contacts_addresses
+        addressRepository.deleteAllByUsernameAndContactIdIn(user.getUsername(), List.of(contact.getId()));
 
         contactRepository.delete(contact); // delete DB
+        contactSearchIndex.remove(user.getUsername(), contact.getId());
+        searchResultCache.invalidate(user.getUsername());
+
+    }
+
+    // tanpa @Transactional: satu transaksi per chunk, jadi lock row hanya di tahan selama satu chunk (bukan selama semua contact terhapus)
+    // setiap chunk hanya 2 DELETE set-based (addresses lalu contacts), tanpa load entity satu per satu
+    public BulkDeleteContactResponse deleteBulk(User user, BulkDeleteContactRequest request) {
+
+        // filter kosong di anggap tidak ada: name "" jadi LIKE '%%' (cocok dengan semua contact), jadi tidak boleh di hitung sebagai filter
+        SearchContactRequest filter = SearchContactRequest.builder()
+                .name(blankToNull(request.getName()))
+                .email(blankToNull(request.getEmail()))
+                .domain(blankToNull(domain(request.getDomain())))
+                .phone(blankToNull(digits(request.getPhone())))
+                .phoneSuffix(blankToNull(digits(request.getPhoneSuffix())))
+                .build();
+        boolean byFilter = Objects.nonNull(filter.getName()) || Objects.nonNull(filter.getEmail()) || Objects.nonNull(filter.getDomain())
+                || Objects.nonNull(filter.getPhone()) || Objects.nonNull(filter.getPhoneSuffix());
+
+        // harus salah satu, supaya request kosong tidak menghapus semua contact user
+        if (Objects.nonNull(request.getIds()) == byFilter) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either ids or a search filter is required");
+        }
+
+        BulkDeleteContactResponse total = BulkDeleteContactResponse.builder().contacts(0L).addresses(0L).build();
+
+        if (!byFilter) {
+            List<String> ids = request.getIds().stream().filter(Objects::nonNull).distinct().toList();
+            if (ids.size() > bulkMaxItems) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Too many contacts, maximum is " + bulkMaxItems);
+            }
+
+            for (int from = 0; from < ids.size(); from += bulkChunkSize) {
+                List<String> chunk = ids.subList(from, Math.min(ids.size(), from + bulkChunkSize));
+                transactionTemplate.executeWithoutResult(status -> deleteChunk(user, chunk, total));
+            }
+            return total;
+        }
+
+        // id yang cocok dengan filter di ambil per chunk (urut id), lalu di hapus. contact yang sudah terhapus tidak ikut di chunk berikutnya
+        Specification<Contact> specification = searchSpecification(user, filter, ContactSort.ID, null);
+        while (true) {
+            Integer found = transactionTemplate.execute(status -> {
+                List<String> chunk = contactRepository.findResponses(specification, ContactSort.ID.toSort(), 0, bulkChunkSize).stream()
+                        .map(ContactResponse::getId)
+                        .toList();
+                if (!chunk.isEmpty()) {
+                    deleteChunk(user, chunk, total);
+                }
+                return chunk.size();
+            });
+            if (found == null || found < bulkChunkSize) {
+                break;
+            }
+        }
+        return total;
 
     }
 
+    // harus di panggil di dalam transaksi
+    private void deleteChunk(User user, List<String> ids, BulkDeleteContactResponse total) {
+
+        insertTombstones(user, ids);
+
+        // query: delete a from addresses a join contacts c on c.id = a.contact_id where c.username = ? and c.id in (...)
+        int addresses = addressRepository.deleteAllByUsernameAndContactIdIn(user.getUsername(), ids);
+        // query: delete from contacts where username = ? and id in (...). id milik user lain / yang tidak ada di abaikan
+        int contacts = contactRepository.deleteAllByUsernameAndIdIn(user.getUsername(), ids);
+
+        total.setAddresses(total.getAddresses() + addresses);
+        total.setContacts(total.getContacts() + contacts);
+
+        // index search dan cache user di bangun ulang setelah commit
+        contactSearchIndex.invalidate(user.getUsername());
+        searchResultCache.invalidate(user.getUsername());
+
+    }
+
+    // tombstone contact dan address nya sebelum di hapus, supaya client GET /api/contacts/changes tahu row mana yang hilang
+    // harus di panggil di dalam transaksi, sebelum DELETE
+    private void insertTombstones(User user, List<String> contactIds) {
+        long version = syncVersions.next(user.getUsername());
+        long deletedAt = System.currentTimeMillis();
+        tombstoneRepository.insertAddresses(user.getUsername(), contactIds, version, deletedAt);
+        tombstoneRepository.insertContacts(user.getUsername(), contactIds, version, deletedAt);
+    }
+
+    // perubahan contact, address dan tombstone setelah since, di gabung urut (version, id) dan di potong size row
+    // setiap sumber di baca dari index (username, version, id) masing masing, size + 1 row, jadi query tetap kecil berapapun jumlah contact
+    // ketiga query di satu transaksi read only (snapshot yang sama), jadi tidak ada perubahan yang setengah terbaca
+    // id selalu UUID huruf kecil, urutan String.compareTo sama dengan urutan collation MySQL
     @Transactional(readOnly = true)
+    public ContactChangesResponse changes(User user, String since, Integer size) {
+
+        ChangeCursor from = ChangeCursor.decode(since);
+        int limit = Math.max(1, Math.min(size, syncMaxSize));
+        PageRequest first = PageRequest.of(0, limit + 1);
+
+        List<Change> changes = new ArrayList<>();
+        for (Object[] row : contactRepository.findChanges(user.getUsername(), from.version(), from.id(), first)) {
+            changes.add(new Change((Long) row[5], (String) row[0], ContactResponse.builder()
+                    .id((String) row[0])
+                    .firstName((String) row[1])
+                    .lastName((String) row[2])
+                    .email((String) row[3])
+                    .phone((String) row[4])
+                    .build()));
+        }
+        for (Object[] row : addressRepository.findChanges(user.getUsername(), from.version(), from.id(), first)) {
+            changes.add(new Change((Long) row[7], (String) row[0], AddressChangeResponse.builder()
+                    .id((String) row[0])
+                    .contactId((String) row[1])
+                    .street((String) row[2])
+                    .city((String) row[3])
+                    .province((String) row[4])
+                    .country((String) row[5])
+                    .postalCode((String) row[6])
+                    .build()));
+        }
+        for (Tombstone tombstone : tombstoneRepository.findChanges(user.getUsername(), from.version(), from.id(), first)) {
+            changes.add(new Change(tombstone.getVersion(), tombstone.getId(), DeletedResponse.builder()
+                    .type(tombstone.getType())
+                    .id(tombstone.getId())
+                    .contactId(tombstone.getContactId())
+                    .build()));
+        }
+        changes.sort(Comparator.comparingLong(Change::version).thenComparing(Change::id));
+
+        // lebih dari limit artinya ada sumber yang belum habis
+        boolean hasMore = changes.size() > limit;
+        if (hasMore) {
+            changes = changes.subList(0, limit);
+        }
+
+        List<ContactResponse> contacts = new ArrayList<>();
+        List<AddressChangeResponse> addresses = new ArrayList<>();
+        List<DeletedResponse> deleted = new ArrayList<>();
+        for (Change change : changes) {
+            if (change.item() instanceof ContactResponse contact) {
+                contacts.add(contact);
+            } else if (change.item() instanceof AddressChangeResponse address) {
+                addresses.add(address);
+            } else {
+                deleted.add((DeletedResponse) change.item());
+            }
+        }
+
+        ChangeCursor next = changes.isEmpty() ? from : new ChangeCursor(changes.get(changes.size() - 1).version(), changes.get(changes.size() - 1).id());
+
+        return ContactChangesResponse.builder()
+                .contacts(contacts)
+                .addresses(addresses)
+                .deleted(deleted)
+                .next(next.encode())
+                .hasMore(hasMore)
+                .build();
+    }
+
+    // satu row perubahan dari salah satu sumber, item ContactResponse / AddressChangeResponse / DeletedResponse
+    private record Change(long version, String id, Object item) {
+    }
+
+    // semua contact user beserta address nya sebagai NDJSON, satu baris JSON per contact:
+    // {"id":"...","firstName":"...","lastName":"...","email":"...","phone":"...","addresses":[{"id":"...","street":"...",...}]}
+    // row dari cursor MySQL langsung di tulis ke output dengan JsonGenerator, tidak ada List contact / address yang di tampung
+    // jadi memory tetap sama untuk 10 contact atau 10 juta contact. transaksi read only supaya isi export dari satu snapshot
+    @Transactional(readOnly = true)
+    public void export(User user, OutputStream output) throws IOException {
+
+        try (Stream<Object[]> rows = contactRepository.streamExport(user.getUsername());
+             JsonGenerator json = objectMapper.getFactory().createGenerator(output)) {
+
+            // output milik response, yang close servlet container
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // default nya ada spasi di antara root value, jadi baris ke 2 dan seterusnya di awali " {". pemisah baris sudah dari endExportLine()
+            json.setRootValueSeparator(null);
+
+            String current = null;
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+
+                // row contact baru, tutup baris contact sebelumnya
+                if (!row[0].equals(current)) {
+                    if (current != null) {
+                        endExportLine(json);
+                    }
+                    current = (String) row[0];
+
+                    json.writeStartObject();
+                    json.writeStringField("id", current);
+                    json.writeStringField("firstName", (String) row[1]);
+                    json.writeStringField("lastName", (String) row[2]);
+                    json.writeStringField("email", (String) row[3]);
+                    json.writeStringField("phone", (String) row[4]);
+                    json.writeArrayFieldStart("addresses");
+                }
+
+                // left join, contact tanpa address kolom address nya null
+                if (row[5] != null) {
+                    json.writeStartObject();
+                    json.writeStringField("id", (String) row[5]);
+                    json.writeStringField("street", (String) row[6]);
+                    json.writeStringField("city", (String) row[7]);
+                    json.writeStringField("province", (String) row[8]);
+                    json.writeStringField("country", (String) row[9]);
+                    json.writeStringField("postalCode", (String) row[10]);
+                    json.writeEndObject();
+                }
+            }
+            if (current != null) {
+                endExportLine(json);
+            }
+        }
+
+    }
+
+    private static void endExportLine(JsonGenerator json) throws IOException {
+        json.writeEndArray();
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    // tanpa @Transactional: cache hit tidak perlu transaksi (dan koneksi DB), saat miss findPage() di jalankan di transaksi read only milik SearchResultCache
     public Page<ContactResponse> search(User user, SearchContactRequest request) {
 
+        return searchResultCache.get(user.getUsername(), request, () -> findPage(user, request));
+
+    }
+
+    private Page<ContactResponse> findPage(User user, SearchContactRequest request) {
+
+        // tanpa sort urut id, supaya halaman tetap stabil (lihat ContactSort)
+        ContactSort sort = ContactSort.forPage(request.getSort());
+        PageRequest pageable = PageRequest.of(request.getPage(), request.getSize(), sort.toSort()); // static PageRequest of(int page, int size, Sort sort) // implementasi PageRequest dari interface Page<T> //
+
+        // filter di cari di index trigram in-memory, MySQL hanya di query untuk contact di halaman ini (lihat ContactSearchIndex)
+        // hasil index urut id, jadi hanya di pakai untuk urutan default. ids null = index user belum siap, pakai query SQL di bawah
+        if (contactSearchIndex.isEnabled() && sort.equals(ContactSort.ID)) {
+            String[] ids = contactSearchIndex.search(user.getUsername(), request.getName(), request.getEmail(), domain(request.getDomain()),
+                    digits(request.getPhone()), digits(request.getPhoneSuffix()));
+            if (Objects.nonNull(ids)) {
+                return new PageImpl<>(findIndexed(user, ids, pageable), pageable, ids.length);
+            }
+        }
+
+        Specification<Contact> specification = searchSpecification(user, request, sort, null);
+
+        // count di jalankan bersamaan dengan query halaman di koneksi lain, null jika harus sequential (lihat SearchCountExecutor)
+        CompletableFuture<Long> total = searchCountExecutor.submit(() -> contactRepository.count(specification));
+        if (Objects.nonNull(total)) {
+            List<ContactResponse> contactResponses = contactRepository.findResponses(specification, pageable.getSort(), pageable.getOffset(), pageable.getPageSize());
+
+            return new PageImpl<>(contactResponses, pageable, join(total));
+        }
+
+        // query halaman langsung di select ke ContactResponse (lihat ContactSearchRepository), bukan findAll(specification, pageable) yang return Page<Contact>
+        // jadi tidak perlu lagi konversi Entity Contact ke DTO ContactResponse lewat stream().map(...)
+        List<ContactResponse> contactResponses = contactRepository.findResponses(specification, pageable.getSort(), pageable.getOffset(), pageable.getPageSize());
+
+        // kita tidak mungkin return Page<ContactResponse>.. maka dari itu kita akan menggunakan class PageImpl<T> Implementasi dari Page<T>,
+        // PageableExecutionUtils.getPage(List<T> content, Pageable pageable, LongSupplier totalSupplier) // sama seperti findAll(specification, pageable)
+        // SELECT COUNT(*) hanya di jalankan jika total tidak bisa di hitung dari halaman ini (misal halaman pertama yang tidak penuh)
+        return PageableExecutionUtils.getPage(contactResponses, pageable, () -> contactRepository.count(specification));
+
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<ContactResponse> searchAfter(User user, SearchContactRequest request) {
+
+        // keyset pagination: bukan LIMIT ... OFFSET ... (MySQL tetap membaca lalu membuang semua row sebelum offset)
+        // tapi WHERE (first_name, id) > (cursor) ORDER BY first_name, id LIMIT size + 1 (default sort firstName)
+        // dengan index (username, first_name, id) query langsung loncat ke posisi cursor, jadi halaman ke berapa pun sama cepatnya
+        if (request.getSize() < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Size must be greater than 0");
+        }
+        ContactSort sort = ContactSort.forCursor(request.getSort());
+        ContactCursor after = ContactCursor.decode(request.getAfter(), sort);
+
+        Specification<Contact> specification = searchSpecification(user, request, sort, after);
+
+        return slice(specification, PageRequest.of(0, request.getSize(), sort.toSort()));
+
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<ContactResponse> searchSlice(User user, SearchContactRequest request) {
+
+        // sama seperti search() tapi tanpa SELECT COUNT(*) dengan predicate LIKE '%...%' yang sama
+        // count sering lebih mahal dari halamannya sendiri, client infinite scroll cukup tahu masih ada halaman berikutnya atau tidak
+        ContactSort sort = ContactSort.forPage(request.getSort());
+        PageRequest pageable = PageRequest.of(request.getPage(), request.getSize(), sort.toSort());
+
+        if (contactSearchIndex.isEnabled() && sort.equals(ContactSort.ID)) {
+            String[] ids = contactSearchIndex.search(user.getUsername(), request.getName(), request.getEmail(), domain(request.getDomain()),
+                    digits(request.getPhone()), digits(request.getPhoneSuffix()));
+            if (Objects.nonNull(ids)) {
+                return new SliceImpl<>(findIndexed(user, ids, pageable), pageable, ids.length > pageable.getOffset() + pageable.getPageSize());
+            }
+        }
+
+        Specification<Contact> specification = searchSpecification(user, request, sort, null);
+
+        return slice(specification, pageable);
+
+    }
+
+    // posisi setelah cursor untuk ORDER BY <kolom>, id (arah sama). MySQL menaruh NULL paling depan di asc dan paling belakang di desc
+    // asc:  kolom > v or (kolom = v and id > x)                       cursor null: (kolom is null and id > x) or kolom is not null
+    // desc: kolom < v or (kolom = v and id < x) or kolom is null      cursor null: kolom is null and id < x
+    private static Predicate seek(Root<Contact> root, CriteriaBuilder criteriaBuilder, ContactSort sort, ContactCursor after) {
+
+        Path<String> column = root.get(sort.property());
+        Path<String> id = root.get("id");
+        Predicate idAfter = sort.descending() ? criteriaBuilder.lessThan(id, after.id()) : criteriaBuilder.greaterThan(id, after.id());
+
+        if (after.value() == null) {
+            Predicate sameNull = criteriaBuilder.and(criteriaBuilder.isNull(column), idAfter);
+            return sort.descending() ? sameNull : criteriaBuilder.or(sameNull, criteriaBuilder.isNotNull(column));
+        }
+
+        Predicate columnAfter = sort.descending() ? criteriaBuilder.lessThan(column, after.value()) : criteriaBuilder.greaterThan(column, after.value());
+        Predicate sameValue = criteriaBuilder.and(criteriaBuilder.equal(column, after.value()), idAfter);
+        return sort.descending()
+                ? criteriaBuilder.or(columnAfter, sameValue, criteriaBuilder.isNull(column))
+                : criteriaBuilder.or(columnAfter, sameValue);
+
+    }
+
+    // ambil 1 row lebih untuk tahu apakah masih ada halaman berikutnya, tanpa SELECT COUNT(*)
+    private Slice<ContactResponse> slice(Specification<Contact> specification, PageRequest pageable) {
+
+        List<ContactResponse> contactResponses = contactRepository.findResponses(specification, pageable.getSort(), pageable.getOffset(), pageable.getPageSize() + 1);
+        boolean hasNext = contactResponses.size() > pageable.getPageSize();
+
+        return new SliceImpl<>(hasNext ? contactResponses.subList(0, pageable.getPageSize()) : contactResponses, pageable, hasNext);
+
+    }
+
+    // ambil contact di halaman ini berdasarkan primary key, urutan mengikuti ids (urut berdasarkan id)
+    private List<ContactResponse> findIndexed(User user, String[] ids, PageRequest pageable) {
+
+        if (pageable.getOffset() >= ids.length) {
+            return new ArrayList<>();
+        }
+
+        List<String> pageIds = Arrays.asList(ids).subList((int) pageable.getOffset(), (int) Math.min(ids.length, pageable.getOffset() + pageable.getPageSize()));
+        Map<String, ContactResponse> contacts = contactRepository.findResponsesByUsernameAndIdIn(user.getUsername(), pageIds).stream()
+                .collect(Collectors.toMap(ContactResponse::getId, Function.identity()));
+
+        // contact yang baru saja di hapus (index belum ter-update) di lewati
+        return pageIds.stream()
+                .map(contacts::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+    }
+
+    // "@Example.com " jadi "example.com", sama dengan Contact.emailDomain(). null tetap null
+    private static String domain(String domain) {
+        return domain == null ? null : domain.trim().replaceFirst("^@", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    // pola LIKE '%...%' untuk substring, '%' dan '_' dari client di escape supaya di cari apa adanya bukan jadi wildcard
+    // (sama dengan ContactSearchIndex). escape char '!' bukan '\' karena backslash di literal MySQL juga escape
+    private static String contains(String query) {
+        return "%" + query.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+
+    // angka saja dari query phone, null tetap null
+    private static String digits(String phone) {
+        return Contact.phoneDigits(phone);
+    }
+
+    private boolean useFullText(String query) {
+        return "fulltext".equals(searchStrategy) && query.replace("\"", "").trim().length() >= ngramTokenSize;
+    }
+
+    // di boolean mode, "..." adalah phrase: semua ngram harus ada dan berurutan, jadi mirip substring. tanda kutip dari client di buang
+    private static String phrase(String query) {
+        return "\"" + query.replace("\"", "") + "\"";
+    }
+
+    // CompletableFuture.join() membungkus exception dengan CompletionException, ambil exception aslinya
+    private static long join(CompletableFuture<Long> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private Specification<Contact> searchSpecification(User user, SearchContactRequest request, ContactSort sort, ContactCursor after) {
+
         // Specification<T> fitur Criteria query secara dinamis
         // Specification adalah lambda yang return Predicate biasanya return value boolean
         // Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) // anonymouse class dari Implementasi Specifitation<T>
@@ -138,19 +835,53 @@ public class ContactServiceImpl implements ContactService {
                     // Predicate like(Expression<String> var1, String var2) // Buat predicate untuk menguji apakah ekspresi memenuhi pola yang diberikan.
                     // <Y> Path<Y> get(String var1) // Buat jalur yang sesuai dengan atribut yang direferensikan, dari referece argument DTO/SearchContactRequest.
                     // query: select c.* from contacts c left join users u on (u.username = c.username) where first_name like= %?% or last_name like = %?%;
-                            criteriaBuilder.like(root.get("firstName"), "%" + request.getName() +"%"),
-                            criteriaBuilder.like(root.get("lastName"), "%" + request.getName() +"%")
+                            criteriaBuilder.like(root.get("firstName"), contains(request.getName()), LIKE_ESCAPE),
+                            criteriaBuilder.like(root.get("lastName"), contains(request.getName()), LIKE_ESCAPE)
                     ));
+                    // MATCH mencari kandidat lewat FULLTEXT index, LIKE di atas tetap ada supaya hasilnya sama persis
+                    // query: ... and match(first_name, last_name) against('"?"' in boolean mode) > 0
+                    if (useFullText(request.getName())){
+                        predicates.add(criteriaBuilder.greaterThan(criteriaBuilder.function("match_against2", Double.class,
+                                root.get("firstName"), root.get("lastName"), criteriaBuilder.literal(phrase(request.getName()))), 0.0));
+                    }
                 }
                 if (Objects.nonNull(request.getEmail())){
                     predicates.add(criteriaBuilder.or(
-                            criteriaBuilder.like(root.get("email"), "%" + request.getEmail() + "%")
+                            criteriaBuilder.like(root.get("email"), contains(request.getEmail()), LIKE_ESCAPE)
                     ));
+                    if (useFullText(request.getEmail())){
+                        predicates.add(criteriaBuilder.greaterThan(criteriaBuilder.function("match_against", Double.class,
+                                root.get("email"), criteriaBuilder.literal(phrase(request.getEmail()))), 0.0));
+                    }
+                }
+                // domain email persis, query: ... and email_domain = ?, dengan index (username, email_domain)
+                // domain kosong tidak cocok dengan contact mana pun (email_domain tidak pernah kosong)
+                if (Objects.nonNull(request.getDomain())){
+                    String domain = domain(request.getDomain());
+                    predicates.add(domain.isEmpty() ? criteriaBuilder.disjunction() : criteriaBuilder.equal(root.get("emailDomain"), domain));
                 }
+                // phone di bandingkan angka saja (phone_digits), jadi query "0899991" tetap ketemu "0899-991 2222"
+                // query tanpa angka sama sekali tidak cocok dengan contact mana pun
                 if (Objects.nonNull(request.getPhone())){
-                    predicates.add(criteriaBuilder.or(
-                            criteriaBuilder.like(root.get("phone"), "%" + request.getPhone() + "%")
+                    String digits = digits(request.getPhone());
+                    predicates.add(digits.isEmpty() ? criteriaBuilder.disjunction() : criteriaBuilder.or(
+                            criteriaBuilder.like(root.get("phoneDigits"), "%" + digits + "%")
                     ));
+                    if (useFullText(digits)){
+                        predicates.add(criteriaBuilder.greaterThan(criteriaBuilder.function("match_against", Double.class,
+                                root.get("phoneDigits"), criteriaBuilder.literal(phrase(digits))), 0.0));
+                    }
+                }
+                // phone berakhiran angka tertentu (caller ID), di cari di kolom phone_reversed
+                // query: ... and phone_reversed like '2222990%', dengan index (username, phone_reversed) jadi range scan bukan full scan
+                if (Objects.nonNull(request.getPhoneSuffix())){
+                    String reversed = new StringBuilder(digits(request.getPhoneSuffix())).reverse().toString();
+                    predicates.add(reversed.isEmpty() ? criteriaBuilder.disjunction()
+                            : criteriaBuilder.like(root.get("phoneReversed"), reversed + "%"));
+                }
+                // seek predicate untuk cursor mode, misal sort firstName: first_name > ? or (first_name = ? and id > ?)
+                if (Objects.nonNull(after)){
+                    predicates.add(seek(root, criteriaBuilder, sort, after));
                 }
 
                 // CriteriaQuery<T> where(Predicate... var1) // Ubah kueri untuk membatasi hasil kueri sesuai dengan konjungsi predicate pembatasan yang ditentukan.
@@ -160,24 +891,7 @@ public class ContactServiceImpl implements ContactService {
             }
         };
 
-        PageRequest pageable = PageRequest.of(request.getPage(), request.getSize()); // static PageRequest of(int page, int size) // implementasi PageRequest dari interface Page<T> //
-        Page<Contact> contacts = contactRepository.findAll(specification, pageable); // Page<T> findAll(@Nullable Specification<T> spec, Pageable pageable) // temukan semua spesifikasi yang sudah di tentukan dan pagebale yang sudah di tentukan // akan return data pencarian dari DB dan Page Result (Page<T> otomatis akan ambil informasi total data dan total halaman)
-
-        // karena kita method return Page<ContactResponse>, tetapi hasilnya return Page<Contact> dari query. maka kita akan konversi supaya bisa return ContactResponse kita rubah menjadi List<T>
-        // List<T> getContent() // return Page<T> kontent halaman sebagai List<T>
-        // Stream<E> stream() // konversi List<T> ke Stream<T>
-        // <R> Stream<R> map(Function<? super T, ? extends R> mapper) // Operasi Stream akan memodifikasi data aslinya denga Stream baru. hasil akan di simpan (di memoery heap).. kita buat dari return Entity Contact menjadi DTO ContactResponse
-        // <R, A> R collect(Collector<? super T, A, R> collector) // konversi dari Stream<T> ke List<T>
-        List<ContactResponse> contactResponses = contacts.getContent().stream()
-                .map(contact -> toContactResponse(contact))
-                .collect(Collectors.toList());
-
-        // kita tidak mungkin return Page<ContactResponse>.. maka dari itu kita akan menggunakan class PageImpl<T> Implementasi dari Page<T>,
-        // PageImpl(List<T> content, Pageable pageable, long total)
-        // List<T> content // hasil dari Page<T> ke List<T> ke Stream<T>(modifikasi) ke List<T>
-        // Pageable pageable // hasil request body (page dan size)
-        // long total // hasil jumlah total element dari return Page<Contact> query DB
-        return new PageImpl<>(contactResponses, pageable, contacts.getTotalElements()); // PageImpl(List<T> content, Pageable pageable, long total)
+        return specification;
 
     }
 
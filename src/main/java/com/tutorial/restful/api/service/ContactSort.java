@@ -0,0 +1,73 @@
+package com.tutorial.restful.api.service;
+
+import com.tutorial.restful.api.dto.ContactResponse;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Locale;
+import java.util.Set;
+
+public record ContactSort(String property, boolean descending) {
+
+    // urutan search GET /api/contacts?sort=<property>[,asc|desc]
+    // property di batasi whitelist, setiap property punya index (username, <kolom>, id) di database.sql
+    // jadi WHERE username = ? ORDER BY <kolom>, id LIMIT ... di baca langsung dari index (tanpa filesort)
+    // id selalu jadi tie-breaker dengan arah yang sama, urutan stabil walaupun nilai kolom sama dan index bisa di scan mundur untuk desc
+
+    private static final Set<String> PROPERTIES = Set.of("firstName", "lastName", "email");
+
+    // default offset / slice mode: urut primary key, sama dengan urutan ContactSearchIndex
+    public static final ContactSort ID = new ContactSort("id", false);
+
+    // default cursor mode
+    public static final ContactSort FIRST_NAME = new ContactSort("firstName", false);
+
+    public static ContactSort forPage(String sort) {
+        return parse(sort, ID);
+    }
+
+    public static ContactSort forCursor(String sort) {
+        return parse(sort, FIRST_NAME);
+    }
+
+    // "lastName" atau "lastName,desc", null / kosong pakai default
+    private static ContactSort parse(String sort, ContactSort defaultSort) {
+        if (sort == null || sort.isBlank()) {
+            return defaultSort;
+        }
+
+        String[] parts = sort.split(",", -1);
+        String property = parts[0].trim();
+        String direction = parts.length > 1 ? parts[1].trim().toLowerCase(Locale.ROOT) : "asc";
+        if (parts.length > 2 || !PROPERTIES.contains(property) || !(direction.equals("asc") || direction.equals("desc"))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid sort");
+        }
+
+        return new ContactSort(property, direction.equals("desc"));
+    }
+
+    public Sort toSort() {
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        if (property.equals("id")) {
+            return Sort.by(direction, "id");
+        }
+        return Sort.by(new Sort.Order(direction, property), new Sort.Order(direction, "id"));
+    }
+
+    // nilai sort key dari contact, untuk cursor
+    public String value(ContactResponse contact) {
+        return switch (property) {
+            case "firstName" -> contact.getFirstName();
+            case "lastName" -> contact.getLastName();
+            case "email" -> contact.getEmail();
+            default -> contact.getId();
+        };
+    }
+
+    @Override
+    public String toString() {
+        return property + (descending ? ",desc" : ",asc");
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.tutorial.restful.api.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// parser CSV (RFC 4180) yang membaca satu record per panggilan next(), tidak pernah menampung seluruh file
+// field boleh di kutip "...", "" di dalam kutip jadi ", koma dan baris baru di dalam kutip ikut jadi isi field
+// baris kosong di lewati. panjang satu field di batasi supaya satu record besar tidak menghabiskan memory,
+// sisa field yang terlalu panjang tetap di baca (di buang) supaya record berikutnya tetap terbaca benar
+class CsvReader {
+
+    private final Reader reader;
+
+    private final int maxFieldLength;
+
+    // BOM UTF-8 (dari Excel) di awal file di buang
+    private boolean start = true;
+
+    // baris fisik yang sedang di baca, mulai dari 1
+    private long line = 1;
+
+    private long recordLine;
+
+    private boolean tooLong;
+
+    private boolean malformed;
+
+    CsvReader(Reader reader, int maxFieldLength) {
+        this.reader = reader;
+        this.maxFieldLength = maxFieldLength;
+    }
+
+    // return field record berikutnya, null jika sudah akhir file
+    List<String> next() throws IOException {
+        int c = read();
+        while (c == '\r' || c == '\n') {
+            if (c == '\n') {
+                line++;
+            }
+            c = read();
+        }
+        if (c == -1) {
+            return null;
+        }
+
+        recordLine = line;
+        tooLong = false;
+        malformed = false;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean fieldStart = true;
+
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    malformed = true; // kutip tidak di tutup sampai akhir file
+                    fields.add(field.toString());
+                    return fields;
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        append(field, '"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    append(field, (char) c);
+                }
+            } else if (c == '"' && fieldStart) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                fieldStart = true;
+                c = read();
+                continue;
+            } else if (c == '\n' || c == -1) {
+                if (c == '\n') {
+                    line++;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                append(field, (char) c);
+            }
+
+            fieldStart = false;
+            c = read();
+        }
+    }
+
+    // baris fisik tempat record terakhir di mulai (header = baris 1)
+    long getRecordLine() {
+        return recordLine;
+    }
+
+    // ada field di record terakhir yang lebih panjang dari maxFieldLength (isinya terpotong)
+    boolean isTooLong() {
+        return tooLong;
+    }
+
+    // record terakhir tidak valid, misal kutip tidak di tutup
+    boolean isMalformed() {
+        return malformed;
+    }
+
+    private void append(StringBuilder field, char c) {
+        if (field.length() < maxFieldLength) {
+            field.append(c);
+        } else {
+            tooLong = true;
+        }
+    }
+
+    private int read() throws IOException {
+        int c = reader.read();
+        if (start) {
+            start = false;
+            if (c == '\uFEFF') {
+                c = reader.read();
+            }
+        }
+        return c;
+    }
+
+}
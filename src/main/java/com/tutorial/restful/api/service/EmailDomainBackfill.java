@@ -0,0 +1,119 @@
+package com.tutorial.restful.api.service;
+
+import com.tutorial.restful.api.repository.ContactRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Component
+public class EmailDomainBackfill implements MeterBinder {
+
+    // contact yang di buat sebelum kolom email_domain ada masih null, jadi tidak ketemu dengan filter domain
+    // job ini mengisi email_domain per batch id (urut primary key), satu transaksi per batch supaya lock row tidak lama
+    // setiap run maksimal max-batches batch, run berikutnya lanjut dari id terakhir. setelah semua id selesai job berhenti
+    // contact baru / yang di update sudah di isi Contact.normalize(), jadi tidak perlu di ulang. setelah restart satu pass lagi (hanya baca id)
+
+    private final boolean enabled;
+
+    private final int batchSize;
+
+    private final int maxBatches;
+
+    private final long batchPauseMillis;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // id terakhir yang sudah di proses, "" artinya mulai dari awal
+    private String lastId = "";
+
+    private volatile boolean done;
+
+    private final AtomicLong backfilled = new AtomicLong();
+
+    public EmailDomainBackfill(@Value("${app.email-domain-backfill.enabled:true}") boolean enabled,
+                               @Value("${app.email-domain-backfill.batch-size:1000}") int batchSize,
+                               @Value("${app.email-domain-backfill.max-batches:100}") int maxBatches,
+                               @Value("${app.email-domain-backfill.batch-pause-ms:50}") long batchPauseMillis) {
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.batchPauseMillis = batchPauseMillis;
+    }
+
+    @Scheduled(
+            initialDelayString = "${app.email-domain-backfill.interval-ms:60000}",
+            fixedDelayString = "${app.email-domain-backfill.interval-ms:60000}"
+    )
+    public synchronized void backfill() {
+        if (!enabled || done) {
+            return;
+        }
+
+        long started = System.currentTimeMillis();
+        long total = 0;
+        int batches = 0;
+
+        while (batches < maxBatches) {
+            List<String> ids = contactRepository.findIdsAfter(lastId, batchSize);
+            if (ids.isEmpty()) {
+                done = true;
+                log.info("Email domain backfill finished, {} contacts updated", backfilled.get() + total);
+                break;
+            }
+
+            String fromId = ids.get(0);
+            String toId = ids.get(ids.size() - 1);
+            Integer updated = transactionTemplate.execute(status -> contactRepository.backfillEmailDomain(fromId, toId));
+            total += updated == null ? 0 : updated;
+            lastId = toId;
+            batches++;
+
+            // beri jeda supaya transaksi request lain dapat giliran di antara batch
+            try {
+                Thread.sleep(batchPauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        backfilled.addAndGet(total);
+        if (total > 0) {
+            log.info("Email domain backfill updated {} contacts in {} batches, {} ms",
+                    total, batches, System.currentTimeMillis() - started);
+        }
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    // posisi resume run berikutnya
+    public synchronized String getLastId() {
+        return lastId;
+    }
+
+    public long getBackfilled() {
+        return backfilled.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("contact.email-domain.backfilled", this, EmailDomainBackfill::getBackfilled).register(registry);
+    }
+
+}
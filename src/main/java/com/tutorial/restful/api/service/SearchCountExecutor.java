@@ -0,0 +1,140 @@
+package com.tutorial.restful.api.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Slf4j
+@Component
+public class SearchCountExecutor implements MeterBinder {
+
+    // SELECT COUNT(*) untuk search di jalankan di thread (dan koneksi DB) lain, bersamaan dengan query halaman
+    // query halaman tidak menunggu count selesai. efeknya ke latency belum di ukur, jadi default tetap mati
+    //
+    // setiap search memakai 2 koneksi, jadi hanya di lakukan jika pool tidak sedang sibuk.
+    // jika thread pool penuh atau Hikari tidak punya koneksi idle, submit() return null dan count di jalankan sequential seperti biasa
+
+    private final boolean enabled;
+
+    private final ThreadPoolExecutor executor;
+
+    private final TransactionTemplate transactionTemplate;
+
+    // null jika DataSource bukan Hikari, artinya pengecekan koneksi idle di lewati
+    private final HikariDataSource hikariDataSource;
+
+    private final AtomicLong parallel = new AtomicLong();
+
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    public SearchCountExecutor(@Value("${app.search-count.parallel-enabled:false}") boolean enabled,
+                               @Value("${app.search-count.pool-size:8}") int poolSize,
+                               @Value("${app.search-count.queue-capacity:16}") int queueCapacity,
+                               PlatformTransactionManager transactionManager,
+                               DataSource dataSource) {
+        this.enabled = enabled;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.hikariDataSource = unwrapHikari(dataSource);
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "search-count-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // jalankan count di transaksi read only sendiri di thread pool, return null jika harus sequential
+    public CompletableFuture<Long> submit(Supplier<Long> count) {
+        if (!enabled) {
+            return null;
+        }
+
+        if (connectionPoolBusy()) {
+            fallbacks.incrementAndGet();
+            return null;
+        }
+
+        try {
+            CompletableFuture<Long> future = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> count.get()), executor);
+            parallel.incrementAndGet();
+            return future;
+        } catch (RejectedExecutionException e) {
+            fallbacks.incrementAndGet();
+            return null;
+        }
+    }
+
+    // ada request yang menunggu koneksi, atau tidak ada koneksi idle untuk query count
+    private boolean connectionPoolBusy() {
+        if (hikariDataSource == null) {
+            return false;
+        }
+
+        HikariPoolMXBean pool = hikariDataSource.getHikariPoolMXBean();
+        return pool != null && (pool.getThreadsAwaitingConnection() > 0 || pool.getIdleConnections() == 0);
+    }
+
+    public long getParallel() {
+        return parallel.get();
+    }
+
+    public long getFallbacks() {
+        return fallbacks.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("search.count.parallel", this, SearchCountExecutor::getParallel).register(registry);
+        FunctionCounter.builder("search.count.fallbacks", this, SearchCountExecutor::getFallbacks).register(registry);
+        Gauge.builder("search.count.queue.size", executor, pool -> pool.getQueue().size()).register(registry);
+    }
+
+    private static HikariDataSource unwrapHikari(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            log.warn("Cannot unwrap DataSource, connection pool check is disabled", e);
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.tutorial.restful.api.service;
+
+import com.tutorial.restful.api.dto.ContactResponse;
+import com.tutorial.restful.api.dto.SearchContactRequest;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Component
+public class SearchResultCache implements MeterBinder {
+
+    // banyak client polling GET /api/contacts dengan filter yang sama, setiap polling menjalankan query halaman + SELECT COUNT(*)
+    // cache ini menyimpan Page<ContactResponse> per (username, filter search, page, size)
+    //
+    // setiap username punya generation, di naikkan setelah commit create / update / delete contact milik user tersebut
+    // entry menyimpan generation saat query di jalankan, entry dengan generation lama di anggap tidak ada (tidak perlu cari semua key milik user)
+    // generation di baca SEBELUM query, jadi hasil query yang balapan dengan commit tersimpan dengan generation lama dan langsung basi
+    //
+    // loader di jalankan di transaksi read only sendiri, jadi cache hit tidak pinjam koneksi DB sama sekali
+
+    private final boolean enabled;
+
+    private final int maxEntries;
+
+    private final long ttlMs;
+
+    private final TransactionTemplate transactionTemplate;
+
+    // LinkedHashMap(accessOrder = true), entry yang paling lama tidak di pakai ada di depan
+    private final LinkedHashMap<Key, Entry> entries;
+
+    private final ConcurrentHashMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    public SearchResultCache(@Value("${app.search-cache.enabled:false}") boolean enabled,
+                             @Value("${app.search-cache.max-entries:10000}") int maxEntries,
+                             @Value("${app.search-cache.ttl-ms:30000}") long ttlMs,
+                             PlatformTransactionManager transactionManager) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > SearchResultCache.this.maxEntries;
+            }
+        };
+    }
+
+    public Page<ContactResponse> get(String username, SearchContactRequest request, Supplier<Page<ContactResponse>> loader) {
+        if (!enabled) {
+            return transactionTemplate.execute(status -> loader.get());
+        }
+
+        Key key = new Key(username, request.getName(), request.getEmail(), request.getDomain(), request.getPhone(), request.getPhoneSuffix(),
+                request.getSort(), request.getPage(), request.getSize());
+        long generation = generation(username).get();
+        long now = System.currentTimeMillis();
+
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.generation() == generation && entry.expiredAt() > now) {
+                hits.incrementAndGet();
+                return entry.page();
+            }
+        }
+
+        misses.incrementAndGet();
+        Page<ContactResponse> page = transactionTemplate.execute(status -> loader.get());
+
+        synchronized (entries) {
+            entries.put(key, new Entry(generation, now + ttlMs, page));
+        }
+        return page;
+    }
+
+    // dipanggil di create / update / delete contact, semua entry milik username basi setelah transaksi commit
+    public void invalidate(String username) {
+        if (!enabled) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    generation(username).incrementAndGet();
+                }
+            });
+        } else {
+            generation(username).incrementAndGet();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public double getHitRatio() {
+        long hit = hits.get();
+        long total = hit + misses.get();
+        return total == 0 ? 0.0 : (double) hit / total;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("search.cache.hits", this, SearchResultCache::getHits).register(registry);
+        FunctionCounter.builder("search.cache.misses", this, SearchResultCache::getMisses).register(registry);
+        Gauge.builder("search.cache.hit.ratio", this, SearchResultCache::getHitRatio).register(registry);
+        Gauge.builder("search.cache.size", this, SearchResultCache::size).register(registry);
+    }
+
+    private AtomicLong generation(String username) {
+        return generations.computeIfAbsent(username, key -> new AtomicLong());
+    }
+
+    private record Key(String username, String name, String email, String domain, String phone, String phoneSuffix, String sort, int page, int size) {
+    }
+
+    private record Entry(long generation, long expiredAt, Page<ContactResponse> page) {
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.tutorial.restful.api.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SyncVersions {
+
+    // versi perubahan untuk GET /api/contacts/changes, satu counter per user di tabel sync_versions (bukan di row users,
+    // supaya update profile / password dan login tidak antri di belakang transaksi contact)
+    // setiap transaksi yang mengubah contact / address user mengambil satu versi baru, semua row yang di ubah / di hapus
+    // di transaksi itu mendapat versi yang sama. row sync_versions user di lock sampai commit, jadi transaksi user yang sama
+    // berjalan bergantian dan urutan versi = urutan commit. client yang sudah membaca versi N tidak akan melewatkan versi < N
+    //
+    // harus di panggil di dalam transaksi. JdbcTemplate memakai koneksi transaksi JPA yang sedang berjalan
+
+    // query: insert ... on duplicate key update, row di buat saat perubahan pertama user (user lama di isi di database.sql)
+    private static final String INCREMENT_SQL =
+            "insert into sync_versions (username, version) values (?, 1) on duplicate key update version = version + 1";
+
+    // transaksi ini yang memegang lock row nya, jadi yang terbaca adalah versi yang baru saja di naikkan
+    private static final String SELECT_SQL =
+            "select version from sync_versions where username = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public long next(String username) {
+        jdbcTemplate.update(INCREMENT_SQL, username);
+        Long version = jdbcTemplate.queryForObject(SELECT_SQL, Long.class, username);
+        return version == null ? 0 : version;
+    }
+
+}
@@ -5,12 +5,14 @@ import com.tutorial.restful.api.dto.UpdateUserRequest;
 import com.tutorial.restful.api.dto.UserResponse;
 import com.tutorial.restful.api.entity.User;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface UserService {
 
-    void register(RegisterUserRequest request); // karena register return nya hanya OK kita buat return void saja
+    CompletableFuture<Void> register(RegisterUserRequest request); // karena register return nya hanya OK kita buat return Void saja. selesai setelah BCrypt di thread pool PasswordHasher
 
     UserResponse get(User user); // karena get user return data username dan name kita buat return UserResponse
 
-    UserResponse update(User user, UpdateUserRequest request); // karena update user return data username dan name kita buat return UserResponse
+    CompletableFuture<UserResponse> update(User user, UpdateUserRequest request); // karena update user return data username dan name kita buat return UserResponse
 
 }
@@ -5,15 +5,19 @@ import com.tutorial.restful.api.dto.RegisterUserRequest;
 import com.tutorial.restful.api.dto.UpdateUserRequest;
 import com.tutorial.restful.api.dto.UserResponse;
 import com.tutorial.restful.api.entity.User;
+import com.tutorial.restful.api.repository.SessionRepository;
 import com.tutorial.restful.api.repository.UserRepository;
-import com.tutorial.restful.api.security.BCrypt;
+import com.tutorial.restful.api.security.DatabaseExecutor;
+import com.tutorial.restful.api.security.PasswordHasher;
+import com.tutorial.restful.api.security.TokenCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class UserServiceImpl implements UserService{
@@ -24,25 +28,51 @@ public class UserServiceImpl implements UserService{
     @Autowired
     private ValidationService validationService; // service constraint validation
 
-    @Transactional // kita buat behavior menjadi deklaratif
-    public void register(RegisterUserRequest request){
+    @Autowired
+    private SessionRepository sessionRepository; // session login per device
+
+    @Autowired
+    private TokenCache tokenCache; // cache token -> user di UserArgumentResolver
+
+    @Autowired
+    private PasswordHasher passwordHasher; // thread pool khusus BCrypt
+
+    @Autowired
+    private DatabaseExecutor databaseExecutor; // thread pool untuk simpan ke DB setelah BCrypt selesai
+
+    @Autowired
+    private TransactionTemplate transactionTemplate; // transaksi secara programatik, karena penyimpanan jalan setelah hashing selesai
+
+    public CompletableFuture<Void> register(RegisterUserRequest request){
 
         validationService.validate(request); // cek jika ada field yg null // akan menangkap constraint validation
 
         // cek apakah user dengan nama username sudah ada
         // jika ada. tingal hasil Exception username sudah ada
-        if (userRepository.existsById(request.getUsername())){
+        checkUsernameAvailable(request.getUsername());
+
+        // password di enkrip di thread pool PasswordHasher. jagan simpan dalam bentuk plain text
+        // simpan ke DB di thread DatabaseExecutor, thread hashing tidak ikut menunggu koneksi / I/O DB
+        return passwordHasher.hash(request.getPassword())
+                .thenAcceptAsync(hashed -> transactionTemplate.executeWithoutResult(status -> {
+                    // cek sekali lagi, karena selama hashing bisa saja username sudah di pakai request lain
+                    checkUsernameAvailable(request.getUsername());
+
+                    User user = new User();
+                    user.setUsername(request.getUsername());
+                    user.setPassword(hashed);
+                    user.setName(request.getName());
+                    userRepository.save(user); // save db
+                }), databaseExecutor);
+
+    }
+
+    private void checkUsernameAvailable(String username) {
+        if (userRepository.existsById(username)){
             // error
             // throw new ApiException("Username already registered");
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Username already registered"); // ResponseStatusException(HttpStatusCode status, @Nullable String reason) // Konstruktor dengan status respons dan alasan untuk menambahkan pesan pengecualian sebagai penjelasan.
         }
-
-        User user = new User();
-        user.setUsername(request.getUsername());
-        user.setPassword(BCrypt.hashpw(request.getPassword(), BCrypt.gensalt())); // password di enkrip. jagan simpan dalam bentuk plain text
-        user.setName(request.getName());
-        userRepository.save(user); // save db
-
     }
 
     @Override
@@ -58,8 +88,7 @@ public class UserServiceImpl implements UserService{
 
     }
 
-    @Transactional
-    public UserResponse update(User user, UpdateUserRequest request) {
+    public CompletableFuture<UserResponse> update(User user, UpdateUserRequest request) {
 
         validationService.validate(request);
 
@@ -76,12 +105,27 @@ public class UserServiceImpl implements UserService{
             user.setName(request.getName());
         }
 
-        // cek apakah userRequest password tidak null. jika iya binding dengan entity user.password
+        // cek apakah userRequest password tidak null. jika iya hash di thread pool PasswordHasher lalu binding dengan entity user.password
         if (Objects.nonNull(request.getPassword())){
-            user.setPassword(BCrypt.hashpw(request.getPassword(), BCrypt.gensalt()));
+            return passwordHasher.hash(request.getPassword())
+                    .thenApplyAsync(hashed -> {
+                        user.setPassword(hashed);
+                        return save(user);
+                    }, databaseExecutor);
         }
 
-        userRepository.save(user); // save db
+        return CompletableFuture.completedFuture(save(user));
+    }
+
+    private UserResponse save(User user) {
+
+        transactionTemplate.executeWithoutResult(status -> {
+            userRepository.save(user); // save db
+            // data user di cache sudah tidak sama dengan DB, buang cache semua session milik user
+            if (tokenCache.isEnabled()) {
+                sessionRepository.findTokenHashesByUsername(user.getUsername()).forEach(tokenCache::invalidate);
+            }
+        });
 
         return UserResponse.builder()
                 .name(user.getName())
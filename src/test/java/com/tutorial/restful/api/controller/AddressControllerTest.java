@@ -8,11 +8,14 @@ import com.tutorial.restful.api.dto.UpdateAddressRequest;
 import com.tutorial.restful.api.dto.WebResponse;
 import com.tutorial.restful.api.entity.Address;
 import com.tutorial.restful.api.entity.Contact;
+import com.tutorial.restful.api.entity.Session;
 import com.tutorial.restful.api.entity.User;
 import com.tutorial.restful.api.repository.AddressRepository;
 import com.tutorial.restful.api.repository.ContactRepository;
+import com.tutorial.restful.api.repository.SessionRepository;
 import com.tutorial.restful.api.repository.UserRepository;
 import com.tutorial.restful.api.security.BCrypt;
+import com.tutorial.restful.api.security.SessionTokens;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -44,6 +47,9 @@ class AddressControllerTest {
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    SessionRepository sessionRepository;
+
     @Autowired
     ContactRepository contactRepository;
 
@@ -66,10 +72,16 @@ class AddressControllerTest {
         user.setUsername("budhi");
         user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt()));
         user.setName("Budhi");
-        user.setToken("contact");
-        user.setTokenExpiredAt(System.currentTimeMillis() + 1000000);
         userRepository.save(user);
 
+        // token login ada di tabel sessions, yang di simpan hanya hash token
+        Session session = new Session();
+        session.setTokenHash(SessionTokens.hash("contact"));
+        session.setUser(user);
+        session.setCreatedAt(System.currentTimeMillis());
+        session.setExpiredAt(System.currentTimeMillis() + 1000000);
+        sessionRepository.save(session);
+
         // save contanct mula mula untuk sudah login dengan id user budhi
         Contact contact = new Contact();
         contact.setId("contactId");
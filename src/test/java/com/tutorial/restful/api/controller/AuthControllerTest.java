@@ -5,9 +5,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tutorial.restful.api.dto.LoginUserRequest;
 import com.tutorial.restful.api.dto.TokenResponse;
 import com.tutorial.restful.api.dto.WebResponse;
+import com.tutorial.restful.api.entity.Session;
 import com.tutorial.restful.api.entity.User;
+import com.tutorial.restful.api.repository.SessionRepository;
 import com.tutorial.restful.api.repository.UserRepository;
 import com.tutorial.restful.api.security.BCrypt;
+import com.tutorial.restful.api.security.SessionTokens;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -35,6 +38,9 @@ class AuthControllerTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SessionRepository sessionRepository;
+
     @Autowired
     ObjectMapper objectMapper;
 
@@ -98,11 +104,17 @@ class AuthControllerTest {
         request.setUsername("test");
         request.setPassword("salah");
 
-        mockMvc.perform(
+        MvcResult mvcResult = mockMvc.perform(
                 post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .accept(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request))
+        ).andExpect(
+                request().asyncStarted() // BCrypt di proses async di thread pool PasswordHasher
+        ).andReturn();
+
+        mockMvc.perform(
+                asyncDispatch(mvcResult)
         ).andExpectAll(
                 status().isUnauthorized()
         ).andDo(new ResultHandler() {
@@ -179,11 +191,17 @@ class AuthControllerTest {
         request.setUsername("test");
         request.setPassword("test");
 
-        mockMvc.perform(
+        MvcResult mvcResult = mockMvc.perform(
                 post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON_VALUE)
                         .accept(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request))
+        ).andExpect(
+                request().asyncStarted() // BCrypt di proses async di thread pool PasswordHasher
+        ).andReturn();
+
+        mockMvc.perform(
+                asyncDispatch(mvcResult)
         ).andExpectAll(
                 status().isOk()
         ).andDo(new ResultHandler() {
@@ -195,11 +213,13 @@ class AuthControllerTest {
                 Assertions.assertNull(response.getErrors());
                 Assertions.assertNotNull(response.getData().getToken());
                 Assertions.assertNotNull(response.getData().getExpiredAt());
+                // default app.session.ttl-ms 2 hari
+                Assertions.assertTrue(response.getData().getExpiredAt() > System.currentTimeMillis() + 1000L * 60 * 60 * 47);
 
-                User userDB = userRepository.findById("test").orElse(null);
-                Assertions.assertNotNull(userDB);
-                Assertions.assertEquals(userDB.getToken(), response.getData().getToken());
-                Assertions.assertEquals(userDB.getTokenExpiredAt(), response.getData().getExpiredAt());
+                // yang di simpan di tabel sessions hanya hash token
+                Session sessionDB = sessionRepository.findById(SessionTokens.hash(response.getData().getToken())).orElse(null);
+                Assertions.assertNotNull(sessionDB);
+                Assertions.assertEquals(response.getData().getExpiredAt(), sessionDB.getExpiredAt());
 
 
             }
@@ -277,6 +297,50 @@ class AuthControllerTest {
 
     }
 
+    @Test
+    void loginRehashPasswordWithOldCost() throws Exception {
+
+        // hash dengan cost 4, di bawah min-log-rounds, jadi harus di hash ulang setelah login
+        String oldPassword = BCrypt.hashpw("test", BCrypt.gensalt(4));
+
+        User user = new User();
+        user.setName("Test");
+        user.setUsername("test");
+        user.setPassword(oldPassword);
+        userRepository.save(user);
+
+        LoginUserRequest request = new LoginUserRequest();
+        request.setUsername("test");
+        request.setPassword("test");
+
+        MvcResult mvcResult = mockMvc.perform(
+                post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+        ).andExpect(
+                request().asyncStarted()
+        ).andReturn();
+
+        mockMvc.perform(
+                asyncDispatch(mvcResult)
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        // rehash jalan di background, tunggu sampai password di DB berubah
+        String newPassword = oldPassword;
+        for (int i = 0; i < 100 && newPassword.equals(oldPassword); i++) {
+            Thread.sleep(100);
+            newPassword = userRepository.findById("test").orElseThrow().getPassword();
+        }
+
+        Assertions.assertNotEquals(oldPassword, newPassword);
+        Assertions.assertFalse(newPassword.startsWith("$2a$04$"));
+        Assertions.assertTrue(BCrypt.checkpw("test", newPassword));
+
+    }
+
     @Test
     void testLogoutFailed() throws Exception {
 
@@ -319,10 +383,16 @@ class AuthControllerTest {
         user.setUsername("test");
         user.setName("budhi");
         user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt()));
-        user.setToken("test");
-        user.setTokenExpiredAt(System.currentTimeMillis() + 10000000L);
         userRepository.save(user);
 
+        // token login ada di tabel sessions, yang di simpan hanya hash token
+        Session session = new Session();
+        session.setTokenHash(SessionTokens.hash("test"));
+        session.setUser(user);
+        session.setCreatedAt(System.currentTimeMillis());
+        session.setExpiredAt(System.currentTimeMillis() + 10000000L);
+        sessionRepository.save(session);
+
         mockMvc.perform(
                 delete("/api/auth/logout")
                         .accept(MediaType.APPLICATION_JSON)
@@ -339,8 +409,7 @@ class AuthControllerTest {
 
             User userDb = userRepository.findById("test").orElse(null);
             Assertions.assertNotNull(userDb);
-            Assertions.assertNull(userDb.getTokenExpiredAt());
-            Assertions.assertNull(userDb.getToken());
+            Assertions.assertFalse(sessionRepository.existsById(SessionTokens.hash("test")));
         });
 
         /**
@@ -414,6 +483,89 @@ class AuthControllerTest {
          */
     }
 
+    private void createSession(User user, String token) {
+        Session session = new Session();
+        session.setTokenHash(SessionTokens.hash(token));
+        session.setUser(user);
+        session.setCreatedAt(System.currentTimeMillis());
+        session.setExpiredAt(System.currentTimeMillis() + 10000000L);
+        sessionRepository.save(session);
+    }
+
+    @Test
+    void logoutOnlyCurrentSession() throws Exception {
+
+        User user = new User();
+        user.setUsername("test");
+        user.setName("budhi");
+        user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt()));
+        userRepository.save(user);
+
+        // login dari 2 device
+        createSession(user, "laptop");
+        createSession(user, "hp");
+
+        mockMvc.perform(
+                delete("/api/auth/logout")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "laptop")
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "laptop")
+        ).andExpectAll(
+                status().isUnauthorized()
+        );
+
+        // session device lain tetap berlaku
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "hp")
+        ).andExpectAll(
+                status().isOk()
+        );
+
+    }
+
+    @Test
+    void logoutAllSessions() throws Exception {
+
+        User user = new User();
+        user.setUsername("test");
+        user.setName("budhi");
+        user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt()));
+        userRepository.save(user);
+
+        createSession(user, "laptop");
+        createSession(user, "hp");
+
+        mockMvc.perform(
+                delete("/api/auth/logout/all")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "laptop")
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<String> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+
+            Assertions.assertEquals("OK", response.getData());
+            Assertions.assertTrue(sessionRepository.findTokenHashesByUsername("test").isEmpty());
+        });
 
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "hp")
+        ).andExpectAll(
+                status().isUnauthorized()
+        );
+
+    }
 
-}
\ No newline at end of file
+}
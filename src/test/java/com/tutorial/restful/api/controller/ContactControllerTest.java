@@ -1,13 +1,20 @@
 package com.tutorial.restful.api.controller;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.tutorial.restful.api.dto.*;
+import com.tutorial.restful.api.entity.Address;
 import com.tutorial.restful.api.entity.Contact;
+import com.tutorial.restful.api.entity.Session;
 import com.tutorial.restful.api.entity.User;
+import com.tutorial.restful.api.repository.AddressRepository;
 import com.tutorial.restful.api.repository.ContactRepository;
+import com.tutorial.restful.api.repository.SessionRepository;
+import com.tutorial.restful.api.repository.TombstoneRepository;
 import com.tutorial.restful.api.repository.UserRepository;
 import com.tutorial.restful.api.security.BCrypt;
+import com.tutorial.restful.api.security.SessionTokens;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -20,6 +27,8 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.ResultHandler;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
 
@@ -40,9 +49,18 @@ class ContactControllerTest {
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    SessionRepository sessionRepository;
+
     @Autowired
     ContactRepository contactRepository;
 
+    @Autowired
+    AddressRepository addressRepository;
+
+    @Autowired
+    TombstoneRepository tombstoneRepository;
+
     @Autowired
     ObjectMapper objectMapper;
 
@@ -50,7 +68,9 @@ class ContactControllerTest {
     @BeforeEach
     void setUp() {
         // sebelum di test semua record data table akan di hapus
+        addressRepository.deleteAll();
         contactRepository.deleteAll();
+        tombstoneRepository.deleteAll();
         userRepository.deleteAll();
 
         // sebelum unit test di jalankan alih alaih ini untuk login
@@ -58,10 +78,16 @@ class ContactControllerTest {
         user.setUsername("budhi");
         user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt()));
         user.setName("Budhi");
-        user.setToken("contact");
-        user.setTokenExpiredAt(System.currentTimeMillis() + 1000000);
         userRepository.save(user);
 
+        // token login ada di tabel sessions, yang di simpan hanya hash token
+        Session session = new Session();
+        session.setTokenHash(SessionTokens.hash("contact"));
+        session.setUser(user);
+        session.setCreatedAt(System.currentTimeMillis());
+        session.setExpiredAt(System.currentTimeMillis() + 1000000);
+        sessionRepository.save(session);
+
     }
 
     @Test
@@ -173,6 +199,85 @@ class ContactControllerTest {
 
     }
 
+    @Test
+    void testCreateContactBulk() throws Exception {
+
+        List<CreateContactRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            CreateContactRequest request = new CreateContactRequest();
+            request.setFirstName("budhi" + i);
+            request.setLastName("octaviansyah");
+            request.setEmail("budioct" + i + "@contoh.com");
+            request.setPhone("0899-991 222" + i);
+            requests.add(request);
+        }
+        requests.get(2).setFirstName(""); // item tidak valid, item lain tetap di simpan
+
+        MvcResult result = mockMvc.perform(
+                post("/api/contacts/bulk")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests))
+                        .header("X-API-TOKEN", "contact")
+        ).andExpectAll(
+                status().isOk()
+        ).andReturn();
+
+        WebResponse<List<BulkContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+        });
+
+        Assertions.assertNull(response.getErrors());
+        Assertions.assertEquals(5, response.getData().size());
+        for (int i = 0; i < 5; i++) {
+            BulkContactResponse item = response.getData().get(i);
+            Assertions.assertEquals(i, item.getIndex());
+            if (i == 2) {
+                Assertions.assertNull(item.getId());
+                Assertions.assertNotNull(item.getErrors());
+            } else {
+                Assertions.assertNull(item.getErrors());
+                Contact contact = contactRepository.findById(item.getId()).orElseThrow();
+                Assertions.assertEquals("budhi" + i, contact.getFirstName());
+                Assertions.assertEquals("0899991222" + i, contact.getPhoneDigits()); // @PrePersist tetap jalan
+            }
+        }
+        Assertions.assertEquals(4, contactRepository.count());
+
+    }
+
+    @Test
+    void testImportContacts() throws Exception {
+
+        String csv = "firstName,lastName,email,phone\r\n" +
+                "budhi,octaviansyah,budioct@contoh.com,0899-991 2220\r\n" +
+                "\"octaviansyah, \"\"budhi\"\"\",,,\r\n" +
+                ",octaviansyah,salah,\r\n" + // baris tidak valid, baris lain tetap di simpan
+                "budhi,octaviansyah\r\n";
+
+        MvcResult result = mockMvc.perform(
+                post("/api/contacts/import")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType("text/csv")
+                        .content(csv)
+                        .header("X-API-TOKEN", "contact")
+        ).andExpectAll(
+                status().isOk()
+        ).andReturn();
+
+        WebResponse<ImportContactResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+        });
+
+        Assertions.assertNull(response.getErrors());
+        Assertions.assertEquals(2, response.getData().getImported());
+        Assertions.assertEquals(2, response.getData().getFailed());
+        Assertions.assertEquals(4, response.getData().getErrors().get(0).getLine());
+        Assertions.assertEquals(5, response.getData().getErrors().get(1).getLine());
+        Assertions.assertEquals(2, contactRepository.count());
+        Assertions.assertTrue(contactRepository.findAll().stream()
+                .anyMatch(contact -> contact.getFirstName().equals("octaviansyah, \"budhi\"") && contact.getEmail() == null));
+
+    }
+
     @Test
     void testGetContactNotFound() throws Exception {
 
@@ -487,6 +592,241 @@ class ContactControllerTest {
 
     }
 
+    @Test
+    void testDeleteContactBulk() throws Exception {
+
+        User user = userRepository.findById("budhi").orElseThrow();
+
+        List<Contact> contacts = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Contact contact = new Contact();
+            contact.setId(UUID.randomUUID().toString());
+            contact.setUser(user);
+            contact.setFirstName("Budhi" + i);
+            contact.setLastName("Octaviansyah");
+            contact.setEmail("budhi" + i + (i < 3 ? "@example.com" : "@contoh.com"));
+            contact.setPhone("08999912222");
+            contactRepository.save(contact);
+            contacts.add(contact);
+        }
+
+        // contact yang masih punya address tetap bisa di hapus, address nya ikut terhapus
+        for (int i = 0; i < 2; i++) {
+            Address address = new Address();
+            address.setId(UUID.randomUUID().toString());
+            address.setContact(contacts.get(0));
+            address.setCountry("Indonesia");
+            addressRepository.save(address);
+        }
+
+        BulkDeleteContactRequest byIds = new BulkDeleteContactRequest();
+        byIds.setIds(List.of(contacts.get(0).getId(), contacts.get(3).getId(), "tidak-ada"));
+
+        BulkDeleteContactResponse deleted = deleteBulk(byIds);
+        Assertions.assertEquals(2, deleted.getContacts());
+        Assertions.assertEquals(2, deleted.getAddresses());
+
+        // sisa @example.com: Budhi1, Budhi2
+        BulkDeleteContactRequest byFilter = new BulkDeleteContactRequest();
+        byFilter.setDomain("example.com");
+
+        deleted = deleteBulk(byFilter);
+        Assertions.assertEquals(2, deleted.getContacts());
+        Assertions.assertEquals(0, deleted.getAddresses());
+
+        Assertions.assertEquals(2, contactRepository.count()); // Budhi4, Budhi5
+        Assertions.assertEquals(0, addressRepository.count());
+
+        // tanpa ids dan filter di tolak, bukan menghapus semua contact
+        mockMvc.perform(
+                post("/api/contacts/bulk-delete")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BulkDeleteContactRequest()))
+                        .header("X-API-TOKEN", "contact")
+        ).andExpectAll(
+                status().isBadRequest()
+        );
+
+        // filter kosong (LIKE '%%') sama dengan tanpa filter, juga di tolak
+        for (String content : List.of("{\"name\":\"\"}", "{\"email\":\" \"}", "{\"phone\":\"-\"}")) {
+            mockMvc.perform(
+                    post("/api/contacts/bulk-delete")
+                            .accept(MediaType.APPLICATION_JSON)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(content)
+                            .header("X-API-TOKEN", "contact")
+            ).andExpectAll(
+                    status().isBadRequest()
+            );
+        }
+        Assertions.assertEquals(2, contactRepository.count());
+
+    }
+
+    private BulkDeleteContactResponse deleteBulk(BulkDeleteContactRequest request) throws Exception {
+        MvcResult result = mockMvc.perform(
+                post("/api/contacts/bulk-delete")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                        .header("X-API-TOKEN", "contact")
+        ).andExpectAll(
+                status().isOk()
+        ).andReturn();
+
+        WebResponse<BulkDeleteContactResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+        });
+        Assertions.assertNull(response.getErrors());
+        return response.getData();
+    }
+
+    @Test
+    void testContactChanges() throws Exception {
+
+        User user = userRepository.findById("budhi").orElseThrow();
+
+        // contact lama (version 0) ikut terkirim di sync pertama
+        List<Contact> contacts = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Contact contact = new Contact();
+            contact.setId(UUID.randomUUID().toString());
+            contact.setUser(user);
+            contact.setFirstName("Budhi" + i);
+            contactRepository.save(contact);
+            contacts.add(contact);
+        }
+        Address address = new Address();
+        address.setId(UUID.randomUUID().toString());
+        address.setContact(contacts.get(0));
+        address.setCountry("Indonesia");
+        addressRepository.save(address);
+
+        // 4 perubahan, size 3: halaman pertama hasMore, halaman kedua sisanya
+        ContactChangesResponse changes = changes(null, 3);
+        Assertions.assertEquals(3, changes.getContacts().size() + changes.getAddresses().size());
+        Assertions.assertTrue(changes.getHasMore());
+
+        changes = changes(changes.getNext(), 3);
+        Assertions.assertEquals(1, changes.getContacts().size() + changes.getAddresses().size());
+        Assertions.assertFalse(changes.getHasMore());
+
+        // tidak ada perubahan, next tetap bisa di pakai lagi
+        String since = changes.getNext();
+        changes = changes(since, 3);
+        Assertions.assertTrue(changes.getContacts().isEmpty());
+        Assertions.assertEquals(since, changes.getNext());
+
+        // update dan delete setelah since: hanya itu yang terkirim
+        UpdateContactRequest update = new UpdateContactRequest();
+        update.setFirstName("Octaviansyah");
+        mockMvc.perform(
+                put("/api/contacts/" + contacts.get(1).getId())
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update))
+                        .header("X-API-TOKEN", "contact")
+        ).andExpect(status().isOk());
+        mockMvc.perform(
+                delete("/api/contacts/" + contacts.get(0).getId())
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "contact")
+        ).andExpect(status().isOk());
+
+        changes = changes(since, 100);
+        Assertions.assertFalse(changes.getHasMore());
+        Assertions.assertEquals(1, changes.getContacts().size());
+        Assertions.assertEquals("Octaviansyah", changes.getContacts().get(0).getFirstName());
+        Assertions.assertTrue(changes.getAddresses().isEmpty());
+        Assertions.assertEquals(2, changes.getDeleted().size()); // contact dan address nya
+        Assertions.assertTrue(changes.getDeleted().stream()
+                .anyMatch(deleted -> deleted.getType().equals("address") && deleted.getId().equals(address.getId())
+                        && deleted.getContactId().equals(contacts.get(0).getId())));
+        Assertions.assertTrue(changes.getDeleted().stream()
+                .anyMatch(deleted -> deleted.getType().equals("contact") && deleted.getId().equals(contacts.get(0).getId())));
+
+        mockMvc.perform(
+                get("/api/contacts/changes")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .param("since", "bukan-token")
+                        .header("X-API-TOKEN", "contact")
+        ).andExpect(status().isBadRequest());
+
+    }
+
+    private ContactChangesResponse changes(String since, int size) throws Exception {
+        MvcResult result = mockMvc.perform(
+                get("/api/contacts/changes")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .param("since", since == null ? "" : since)
+                        .param("size", String.valueOf(size))
+                        .header("X-API-TOKEN", "contact")
+        ).andExpectAll(
+                status().isOk()
+        ).andReturn();
+
+        WebResponse<ContactChangesResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+        });
+        Assertions.assertNull(response.getErrors());
+        return response.getData();
+    }
+
+    @Test
+    void testExportContacts() throws Exception {
+
+        User user = userRepository.findById("budhi").orElseThrow();
+
+        List<Contact> contacts = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Contact contact = new Contact();
+            contact.setId(UUID.randomUUID().toString());
+            contact.setUser(user);
+            contact.setFirstName("Budhi" + i);
+            contact.setLastName("Octaviansyah");
+            contact.setEmail("budhioct@example.com");
+            contact.setPhone("08999912222");
+            contactRepository.save(contact);
+            contacts.add(contact);
+        }
+        for (int i = 0; i < 2; i++) {
+            Address address = new Address();
+            address.setId(UUID.randomUUID().toString());
+            address.setContact(contacts.get(1));
+            address.setCity("Jakarta" + i);
+            address.setCountry("Indonesia");
+            addressRepository.save(address);
+        }
+
+        MvcResult result = mockMvc.perform(
+                get("/api/contacts/export")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .header("X-API-TOKEN", "contact")
+        ).andExpectAll(
+                status().isOk(),
+                content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+        ).andReturn();
+
+        // satu baris JSON per contact, address ikut di dalam contact nya
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        Assertions.assertEquals(3, lines.length);
+
+        int addresses = 0;
+        for (String line : lines) {
+            Assertions.assertTrue(line.startsWith("{"), line); // NDJSON, tidak ada spasi di awal baris
+            JsonNode contact = objectMapper.readTree(line);
+            Assertions.assertTrue(contact.get("firstName").asText().startsWith("Budhi"));
+            if (contact.get("id").asText().equals(contacts.get(1).getId())) {
+                Assertions.assertEquals(2, contact.get("addresses").size());
+                Assertions.assertEquals("Indonesia", contact.get("addresses").get(0).get("country").asText());
+            } else {
+                Assertions.assertEquals(0, contact.get("addresses").size());
+            }
+            addresses += contact.get("addresses").size();
+        }
+        Assertions.assertEquals(2, addresses);
+
+    }
+
     @Test
     void testSearchContactUnauthorized() throws Exception {
 
@@ -706,4 +1046,272 @@ class ContactControllerTest {
 
     }
 
+    @Test
+    void testSearchContactWithCursor() throws Exception {
+
+        User user = userRepository.findById("budhi").orElseThrow();
+
+        // 25 data, nama depan ada yang sama supaya id di pakai sebagai tie-breaker
+        for (int i = 0; i < 25; i++) {
+            Contact contact = new Contact();
+            contact.setId(UUID.randomUUID().toString());
+            contact.setUser(user);
+            contact.setFirstName("Budhi" + (i % 5));
+            contact.setLastName("Octaviansyah");
+            contact.setEmail("budhioct@example.com");
+            contact.setPhone("08999912222");
+            contactRepository.save(contact);
+        }
+
+        List<ContactResponse> all = new ArrayList<>();
+        String after = ""; // kosong artinya halaman pertama
+        int pages = 0;
+
+        while (after != null) {
+            MvcResult result = mockMvc.perform(
+                    get("/api/contacts")
+                            .queryParam("name", "Budhi")
+                            .queryParam("after", after)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header("X-API-TOKEN", "contact")
+            ).andExpectAll(
+                    status().isOk()
+            ).andReturn();
+
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+
+            Assertions.assertNull(response.getErrors());
+            Assertions.assertNull(response.getPaging().getTotalPage()); // cursor mode tidak menjalankan count
+            Assertions.assertEquals(10, response.getPaging().getSize());
+            Assertions.assertEquals(response.getPaging().getNextCursor() != null, response.getPaging().getHasNext());
+
+            all.addAll(response.getData());
+            after = response.getPaging().getNextCursor();
+            pages++;
+        }
+
+        Assertions.assertEquals(3, pages); // 10 + 10 + 5
+        Assertions.assertEquals(25, all.size());
+        Assertions.assertEquals(25, all.stream().map(ContactResponse::getId).distinct().count()); // tidak ada data dobel antar halaman
+
+        // urut berdasarkan first name lalu id
+        for (int i = 1; i < all.size(); i++) {
+            ContactResponse previous = all.get(i - 1);
+            ContactResponse current = all.get(i);
+            int compare = previous.getFirstName().compareTo(current.getFirstName());
+            Assertions.assertTrue(compare < 0 || (compare == 0 && previous.getId().compareTo(current.getId()) < 0));
+        }
+
+    }
+
+    @Test
+    void testSearchContactWithoutCount() throws Exception {
+
+        User user = userRepository.findById("budhi").orElseThrow();
+
+        for (int i = 0; i < 25; i++) {
+            Contact contact = new Contact();
+            contact.setId(UUID.randomUUID().toString());
+            contact.setUser(user);
+            contact.setFirstName("Budhi" + i);
+            contact.setLastName("Octaviansyah");
+            contact.setEmail("budhioct@example.com");
+            contact.setPhone("08999912222");
+            contactRepository.save(contact);
+        }
+
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("name", "Budhi")
+                        .queryParam("count", "false")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "contact")
+        ).andExpectAll(
+                status().isOk(),
+                jsonPath("$.paging.totalPage").doesNotExist() // tidak ada SELECT COUNT(*)
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+
+            Assertions.assertNull(response.getErrors());
+            Assertions.assertEquals(10, response.getData().size());
+            Assertions.assertEquals(0, response.getPaging().getCurrentPage());
+            Assertions.assertEquals(10, response.getPaging().getSize());
+            Assertions.assertTrue(response.getPaging().getHasNext());
+        });
+
+        // halaman terakhir, sisa 5 data
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("name", "Budhi")
+                        .queryParam("count", "false")
+                        .queryParam("page", "2")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "contact")
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+
+            Assertions.assertEquals(5, response.getData().size());
+            Assertions.assertEquals(2, response.getPaging().getCurrentPage());
+            Assertions.assertFalse(response.getPaging().getHasNext());
+        });
+
+    }
+
+    @Test
+    void testSearchContactInvalidCursor() throws Exception {
+
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("after", "bukan-cursor")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "contact")
+        ).andExpectAll(
+                status().isBadRequest()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+
+            Assertions.assertEquals("Invalid cursor", response.getErrors());
+        });
+
+    }
+
+    @Test
+    void testSearchContactByPhone() throws Exception {
+
+        User user = userRepository.findById("budhi").orElseThrow();
+
+        // format phone bebas, filter phone hanya membandingkan angkanya
+        String[] phones = {"0899-991 2222", "+62 899 9912222", "0811 3333"};
+        for (int i = 0; i < phones.length; i++) {
+            Contact contact = new Contact();
+            contact.setId(UUID.randomUUID().toString());
+            contact.setUser(user);
+            contact.setFirstName("Budhi" + i);
+            contact.setLastName("Octaviansyah");
+            contact.setEmail("budhioct@example.com");
+            contact.setPhone(phones[i]);
+            contactRepository.save(contact);
+        }
+
+        Assertions.assertEquals(2, search("phone", "8999912222").size());
+        Assertions.assertEquals(1, search("phone", "0899 991").size());
+        Assertions.assertEquals(2, search("phoneSuffix", "2222").size());
+        Assertions.assertEquals(2, search("phoneSuffix", "991-2222").size());
+        Assertions.assertEquals("Budhi2", search("phoneSuffix", "3333").get(0).getFirstName());
+        Assertions.assertEquals(0, search("phoneSuffix", "0811").size()); // awalan, bukan akhiran
+        Assertions.assertEquals(0, search("phone", "abc").size()); // tanpa angka tidak cocok dengan contact mana pun
+
+    }
+
+    @Test
+    void testSearchContactByDomain() throws Exception {
+
+        User user = userRepository.findById("budhi").orElseThrow();
+
+        String[] emails = {"budhi@Example.com", "octa@example.com", "budhi@mail.example.com", "budhi@example.co"};
+        for (int i = 0; i < emails.length; i++) {
+            Contact contact = new Contact();
+            contact.setId(UUID.randomUUID().toString());
+            contact.setUser(user);
+            contact.setFirstName("Budhi" + i);
+            contact.setLastName("Octaviansyah");
+            contact.setEmail(emails[i]);
+            contact.setPhone("08999912222");
+            contactRepository.save(contact);
+        }
+
+        // domain persis, tidak termasuk sub domain atau domain lain yang mengandung "example.co"
+        Assertions.assertEquals(2, search("domain", "example.com").size());
+        Assertions.assertEquals(2, search("domain", "@EXAMPLE.com").size());
+        Assertions.assertEquals(1, search("domain", "mail.example.com").size());
+        Assertions.assertEquals(0, search("domain", "").size());
+
+    }
+
+    @Test
+    void testSearchContactSorted() throws Exception {
+
+        User user = userRepository.findById("budhi").orElseThrow();
+
+        // last name ada yang sama dan ada yang null, urutan di dalam nilai yang sama pakai id
+        String[] lastNames = {"Anwar", "Budi", "Citra", null};
+        for (int i = 0; i < 10; i++) {
+            Contact contact = new Contact();
+            contact.setId(UUID.randomUUID().toString());
+            contact.setUser(user);
+            contact.setFirstName("Budhi" + i);
+            contact.setLastName(lastNames[i % lastNames.length]);
+            contact.setEmail("budhioct@example.com");
+            contact.setPhone("08999912222");
+            contactRepository.save(contact);
+        }
+
+        List<ContactResponse> all = new ArrayList<>();
+        String after = "";
+        while (after != null) {
+            MvcResult result = mockMvc.perform(
+                    get("/api/contacts")
+                            .queryParam("sort", "lastName,desc")
+                            .queryParam("size", "3")
+                            .queryParam("after", after)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header("X-API-TOKEN", "contact")
+            ).andExpectAll(
+                    status().isOk()
+            ).andReturn();
+
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+            all.addAll(response.getData());
+            after = response.getPaging().getNextCursor();
+        }
+
+        Assertions.assertEquals(10, all.size());
+        Assertions.assertEquals(10, all.stream().map(ContactResponse::getId).distinct().count());
+
+        // desc: Citra, Budi, Anwar lalu null (MySQL menaruh null di akhir untuk desc), id juga desc
+        Comparator<ContactResponse> expected = Comparator
+                .comparing(ContactResponse::getLastName, Comparator.nullsLast(Comparator.<String>reverseOrder()))
+                .thenComparing(ContactResponse::getId, Comparator.reverseOrder());
+        List<ContactResponse> sorted = new ArrayList<>(all);
+        sorted.sort(expected);
+        Assertions.assertEquals(sorted, all);
+
+        // offset mode memakai urutan yang sama
+        Assertions.assertEquals(sorted.subList(0, 3), search("sort", "lastName,desc").subList(0, 3));
+
+        // property di luar whitelist di tolak
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("sort", "phone")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "contact")
+        ).andExpectAll(
+                status().isBadRequest()
+        );
+
+    }
+
+    private List<ContactResponse> search(String param, String value) throws Exception {
+        MvcResult result = mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam(param, value)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "contact")
+        ).andExpectAll(
+                status().isOk()
+        ).andReturn();
+
+        WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+        });
+        Assertions.assertNull(response.getErrors());
+        return response.getData();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package com.tutorial.restful.api.controller;
+
+import com.tutorial.restful.api.entity.Contact;
+import com.tutorial.restful.api.entity.Session;
+import com.tutorial.restful.api.entity.User;
+import com.tutorial.restful.api.repository.AddressRepository;
+import com.tutorial.restful.api.repository.ContactRepository;
+import com.tutorial.restful.api.repository.SessionRepository;
+import com.tutorial.restful.api.repository.TombstoneRepository;
+import com.tutorial.restful.api.repository.UserRepository;
+import com.tutorial.restful.api.security.BCrypt;
+import com.tutorial.restful.api.security.SessionTokens;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestComponent;
+
+import java.util.UUID;
+
+// data awal untuk test search contact, di pakai dengan @Import(ContactFixture.class)
+// user "test" dengan token "test", contact Budhi0, Budhi1, ... milik user itu
+@TestComponent
+class ContactFixture {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private TombstoneRepository tombstoneRepository;
+
+    // hapus semua data dengan urutan foreign key (sama dengan ContactControllerTest), address yang di tinggal test lain
+    // membuat delete contacts gagal di fk_contacts_addresses. session ikut terhapus (ON DELETE CASCADE)
+    User reset(int contacts) {
+        addressRepository.deleteAll();
+        contactRepository.deleteAll();
+        tombstoneRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = new User();
+        user.setUsername("test");
+        user.setName("Test");
+        user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt(4)));
+        userRepository.save(user);
+
+        Session session = new Session();
+        session.setTokenHash(SessionTokens.hash("test"));
+        session.setUser(user);
+        session.setCreatedAt(System.currentTimeMillis());
+        session.setExpiredAt(System.currentTimeMillis() + 1000000);
+        sessionRepository.save(session);
+
+        for (int i = 0; i < contacts; i++) {
+            contactRepository.save(contact(user, "Budhi" + i, "0899991" + i));
+        }
+        return user;
+    }
+
+    // contact baru (belum di simpan), email dari firstName huruf kecil
+    Contact contact(User user, String firstName, String phone) {
+        Contact contact = new Contact();
+        contact.setId(UUID.randomUUID().toString());
+        contact.setUser(user);
+        contact.setFirstName(firstName);
+        contact.setLastName("Octaviansyah");
+        contact.setEmail(firstName.toLowerCase() + "@example.com");
+        contact.setPhone(phone);
+        return contact;
+    }
+
+}
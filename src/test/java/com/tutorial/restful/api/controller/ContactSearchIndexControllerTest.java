@@ -0,0 +1,216 @@
+package com.tutorial.restful.api.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tutorial.restful.api.dto.ContactResponse;
+import com.tutorial.restful.api.dto.CreateContactRequest;
+import com.tutorial.restful.api.dto.UpdateContactRequest;
+import com.tutorial.restful.api.dto.WebResponse;
+import com.tutorial.restful.api.entity.Contact;
+import com.tutorial.restful.api.entity.User;
+import com.tutorial.restful.api.repository.ContactRepository;
+import com.tutorial.restful.api.service.ContactSearchIndex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "app.contact-index.enabled=true",
+        "app.contact-index.ttl-ms=500"
+})
+@AutoConfigureMockMvc
+@Import(ContactFixture.class)
+class ContactSearchIndexControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ContactFixture contactFixture;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private ContactSearchIndex contactSearchIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        user = contactFixture.reset(25);
+
+        // data di ganti langsung lewat repository, jadi index user ini harus di bangun ulang
+        contactSearchIndex.invalidate("test");
+        awaitIndex();
+    }
+
+    // index di bangun di thread lain, selama itu search pakai SQL. tunggu index siap supaya yang di test memang hasil index
+    private void awaitIndex() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (contactSearchIndex.search("test", null, null, null, null, null) == null) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, "contact search index is not built");
+            Thread.sleep(10);
+        }
+    }
+
+    private WebResponse<List<ContactResponse>> search(String param, String value) throws Exception {
+        MvcResult result = mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam(param, value)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "test")
+        ).andExpectAll(
+                status().isOk()
+        ).andReturn();
+
+        return objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+        });
+    }
+
+    @Test
+    void searchFromIndex() throws Exception {
+
+        WebResponse<List<ContactResponse>> response = search("name", "OCTAVIAN"); // LIKE tidak membedakan huruf besar kecil
+        Assertions.assertNull(response.getErrors());
+        Assertions.assertEquals(10, response.getData().size());
+        Assertions.assertEquals(3, response.getPaging().getTotalPage());
+
+        // Budhi1, Budhi10 - Budhi19
+        response = search("name", "budhi1");
+        Assertions.assertEquals(10, response.getData().size());
+        Assertions.assertEquals(2, response.getPaging().getTotalPage());
+
+        response = search("phone", "9112");
+        Assertions.assertEquals(1, response.getData().size());
+        Assertions.assertEquals("Budhi12", response.getData().get(0).getFirstName());
+
+        // kurang dari 3 karakter, tidak bisa pakai trigram tapi hasilnya tetap sama dengan LIKE (budhi7@ dan budhi17@)
+        response = search("email", "7@");
+        Assertions.assertEquals(2, response.getData().size());
+
+        response = search("name", "tidak ada");
+        Assertions.assertEquals(0, response.getData().size());
+
+    }
+
+    @Test
+    void searchSameAsLike() throws Exception {
+
+        Contact contact = contactFixture.contact(user, "José", "0812345");
+        contact.setLastName("Ramírez_Ñ");
+        contactRepository.save(contact);
+        contactSearchIndex.invalidate("test");
+        awaitIndex();
+
+        // collation utf8mb4_0900_ai_ci tidak membedakan aksen
+        Assertions.assertEquals(1, search("name", "jose").getData().size());
+        Assertions.assertEquals(1, search("name", "RAMIREZ").getData().size());
+        Assertions.assertEquals(1, search("name", "josé").getData().size());
+
+        // '_' dan '%' di cari apa adanya, bukan wildcard
+        Assertions.assertEquals(1, search("name", "z_n").getData().size());
+        Assertions.assertEquals(0, search("name", "udh_").getData().size());
+        Assertions.assertEquals(0, search("name", "b%i").getData().size());
+
+    }
+
+    @Test
+    void indexRebuiltAfterTtl() throws Exception {
+
+        Assertions.assertEquals(0, search("name", "Madun").getData().size());
+
+        // contact yang di simpan instance lain, tidak lewat ContactService jadi index tidak tahu
+        Contact contact = contactFixture.contact(user, "Mali", "1111155555");
+        contact.setLastName("Madun");
+        contactRepository.save(contact);
+
+        long builds = contactSearchIndex.getBuilds();
+        Thread.sleep(600);
+
+        // index expired, search ini pakai SQL sambil index di bangun ulang di background
+        long fallbacks = contactSearchIndex.getFallbacks();
+        Assertions.assertEquals(1, search("name", "Madun").getData().size());
+        Assertions.assertEquals(fallbacks + 1, contactSearchIndex.getFallbacks());
+
+        awaitIndex();
+        Assertions.assertEquals(builds + 1, contactSearchIndex.getBuilds());
+        Assertions.assertEquals(1, search("name", "Madun").getData().size());
+
+    }
+
+    @Test
+    void indexFollowCreateUpdateDelete() throws Exception {
+
+        // index sudah di bangun dari DB di setUp
+        Assertions.assertEquals(0, search("name", "Madun").getData().size());
+
+        CreateContactRequest create = new CreateContactRequest();
+        create.setFirstName("Mali");
+        create.setLastName("Madun");
+        create.setEmail("malimadun@example.com");
+        create.setPhone("1111155555");
+
+        MvcResult result = mockMvc.perform(
+                post("/api/contacts")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(create))
+                        .header("X-API-TOKEN", "test")
+        ).andExpectAll(
+                status().isOk()
+        ).andReturn();
+
+        WebResponse<ContactResponse> created = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+        });
+        String id = created.getData().getId();
+
+        Assertions.assertEquals(id, search("name", "Madun").getData().get(0).getId());
+
+        UpdateContactRequest update = new UpdateContactRequest();
+        update.setFirstName("Mali");
+        update.setLastName("Kusuma");
+        update.setEmail("malimadun@example.com");
+        update.setPhone("1111155555");
+
+        mockMvc.perform(
+                put("/api/contacts/" + id)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update))
+                        .header("X-API-TOKEN", "test")
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        Assertions.assertEquals(0, search("name", "Madun").getData().size());
+        Assertions.assertEquals(id, search("name", "Kusuma").getData().get(0).getId());
+
+        mockMvc.perform(
+                delete("/api/contacts/" + id)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "test")
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        Assertions.assertEquals(0, search("name", "Kusuma").getData().size());
+
+    }
+
+}
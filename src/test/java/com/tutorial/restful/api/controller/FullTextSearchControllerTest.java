@@ -0,0 +1,86 @@
+package com.tutorial.restful.api.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tutorial.restful.api.dto.ContactResponse;
+import com.tutorial.restful.api.dto.WebResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "app.contact-search.strategy=fulltext"
+})
+@AutoConfigureMockMvc
+@Import(ContactFixture.class)
+class FullTextSearchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ContactFixture contactFixture;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        contactFixture.reset(25);
+    }
+
+    private WebResponse<List<ContactResponse>> search(String param, String value) throws Exception {
+        MvcResult result = mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam(param, value)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "test")
+        ).andExpectAll(
+                status().isOk()
+        ).andReturn();
+
+        return objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+        });
+    }
+
+    @Test
+    void searchWithFullText() throws Exception {
+
+        // MATCH ... AGAINST + LIKE, hasilnya harus sama dengan LIKE saja
+        WebResponse<List<ContactResponse>> response = search("name", "Octavian");
+        Assertions.assertNull(response.getErrors());
+        Assertions.assertEquals(10, response.getData().size());
+        Assertions.assertEquals(3, response.getPaging().getTotalPage());
+
+        // Budhi1, Budhi10 - Budhi19
+        response = search("name", "budhi1");
+        Assertions.assertEquals(10, response.getData().size());
+        Assertions.assertEquals(2, response.getPaging().getTotalPage());
+
+        response = search("phone", "9112");
+        Assertions.assertEquals(1, response.getData().size());
+        Assertions.assertEquals("Budhi12", response.getData().get(0).getFirstName());
+
+        // lebih pendek dari ngram token size, hanya LIKE
+        response = search("name", "7");
+        Assertions.assertEquals(2, response.getData().size());
+
+        // tanda kutip dari client tidak merusak query boolean mode
+        response = search("name", "\"tidak ada");
+        Assertions.assertEquals(0, response.getData().size());
+
+    }
+
+}
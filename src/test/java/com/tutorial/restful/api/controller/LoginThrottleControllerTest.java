@@ -0,0 +1,113 @@
+package com.tutorial.restful.api.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tutorial.restful.api.dto.LoginUserRequest;
+import com.tutorial.restful.api.dto.WebResponse;
+import com.tutorial.restful.api.entity.User;
+import com.tutorial.restful.api.repository.UserRepository;
+import com.tutorial.restful.api.security.BCrypt;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "app.login-throttle.enabled=true",
+        "app.login-throttle.username-backoff-free-failures=1",
+        "app.login-throttle.backoff-base-ms=60000"
+})
+@AutoConfigureMockMvc
+@Import(ContactFixture.class)
+class LoginThrottleControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ContactFixture contactFixture;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        // user "test" dengan password "rahasia", data dari test lain di hapus dengan urutan foreign key
+        contactFixture.reset(0);
+    }
+
+    private MvcResult login(String username, String password) throws Exception {
+        LoginUserRequest request = new LoginUserRequest();
+        request.setUsername(username);
+        request.setPassword(password);
+
+        return mockMvc.perform(
+                post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+        ).andReturn();
+    }
+
+    @Test
+    void loginTooManyFailures() throws Exception {
+
+        // 2x password salah, setelah gagal ke 2 username di back-off
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(
+                    asyncDispatch(login("test", "salah"))
+            ).andExpectAll(
+                    status().isUnauthorized()
+            );
+        }
+
+        // di tolak sebelum BCrypt, walaupun password benar
+        MvcResult result = login("test", "rahasia");
+
+        Assertions.assertEquals(429, result.getResponse().getStatus());
+        Assertions.assertNotNull(result.getResponse().getHeader(HttpHeaders.RETRY_AFTER));
+
+        WebResponse<String> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+        });
+        Assertions.assertEquals("Too many login attempts, please try again later", response.getErrors());
+
+    }
+
+    @Test
+    void loginOtherUsernameNotThrottled() throws Exception {
+
+        // state throttle tetap ada antar test (satu context), jadi pakai username yang tidak di pakai test lain
+        User user = new User();
+        user.setUsername("test2");
+        user.setName("Test 2");
+        user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt()));
+        userRepository.save(user);
+
+        // username tidak ada langsung 401 tanpa BCrypt
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertEquals(401, login("unknown-" + i, "salah").getResponse().getStatus());
+        }
+
+        // back-off per username, address yang sama masih boleh login dengan username lain
+        mockMvc.perform(
+                asyncDispatch(login("test2", "rahasia"))
+        ).andExpectAll(
+                status().isOk()
+        );
+
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.tutorial.restful.api.controller;
+
+import com.tutorial.restful.api.entity.Session;
+import com.tutorial.restful.api.entity.User;
+import com.tutorial.restful.api.repository.SessionRepository;
+import com.tutorial.restful.api.security.NegativeTokenCache;
+import com.tutorial.restful.api.security.SessionTokens;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "app.token-negative-cache.enabled=true",
+        "app.token-negative-cache.ttl-ms=500",
+        "app.token-negative-cache.max-size=2",
+        "app.token-negative-cache.stripes=1" // satu stripe, supaya batas max-size 2 berlaku untuk semua token di test LRU
+})
+@AutoConfigureMockMvc
+@Import(ContactFixture.class)
+class NegativeTokenCacheControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ContactFixture contactFixture;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private NegativeTokenCache negativeTokenCache;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        user = contactFixture.reset(0);
+
+        // entry dari test sebelumnya sudah expired setelah ttl-ms
+        Thread.sleep(600);
+    }
+
+    private void createSession(String token, long expiredAt) {
+        Session session = new Session();
+        session.setTokenHash(SessionTokens.hash(token));
+        session.setUser(user);
+        session.setCreatedAt(System.currentTimeMillis());
+        session.setExpiredAt(expiredAt);
+        sessionRepository.save(session);
+    }
+
+    private void getCurrent(String token, int status) throws Exception {
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", token)
+        ).andExpectAll(
+                status().is(status)
+        );
+    }
+
+    @Test
+    void unknownTokenRejectedWithoutDatabase() throws Exception {
+
+        getCurrent("salah", 401); // tidak ada di sessions, di simpan di negative cache
+        Assertions.assertTrue(negativeTokenCache.contains(SessionTokens.hash("salah")));
+
+        // session di buat langsung di DB, selama entry belum expired token tetap di tolak tanpa query sessions
+        createSession("salah", System.currentTimeMillis() + 1000000);
+        long rejections = negativeTokenCache.getRejections();
+        getCurrent("salah", 401);
+        Assertions.assertEquals(rejections + 1, negativeTokenCache.getRejections());
+
+        // setelah ttl-ms token di cek lagi ke DB
+        Thread.sleep(600);
+        getCurrent("salah", 200);
+
+    }
+
+    @Test
+    void expiredSessionRejected() throws Exception {
+
+        createSession("expired", System.currentTimeMillis() - 1000);
+
+        getCurrent("expired", 401);
+        Assertions.assertTrue(negativeTokenCache.contains(SessionTokens.hash("expired")));
+
+    }
+
+    @Test
+    void logoutRejectsToken() throws Exception {
+
+        getCurrent("test", 200);
+        Assertions.assertFalse(negativeTokenCache.contains(SessionTokens.hash("test")));
+
+        mockMvc.perform(
+                delete("/api/auth/logout")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "test")
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        long rejections = negativeTokenCache.getRejections();
+        getCurrent("test", 401);
+        Assertions.assertEquals(rejections + 1, negativeTokenCache.getRejections());
+
+    }
+
+    @Test
+    void evictLeastRecentlyUsed() {
+
+        negativeTokenCache.put("a");
+        negativeTokenCache.put("b");
+        Assertions.assertTrue(negativeTokenCache.contains("a")); // "a" baru di akses, "b" yang paling lama
+
+        negativeTokenCache.put("c"); // max-size 2
+        Assertions.assertTrue(negativeTokenCache.contains("a"));
+        Assertions.assertFalse(negativeTokenCache.contains("b"));
+        Assertions.assertTrue(negativeTokenCache.contains("c"));
+
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.tutorial.restful.api.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tutorial.restful.api.dto.ContactResponse;
+import com.tutorial.restful.api.dto.WebResponse;
+import com.tutorial.restful.api.service.SearchCountExecutor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "app.search-count.parallel-enabled=true"
+})
+@AutoConfigureMockMvc
+@Import(ContactFixture.class)
+class ParallelCountControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ContactFixture contactFixture;
+
+    @Autowired
+    private SearchCountExecutor searchCountExecutor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        contactFixture.reset(25);
+    }
+
+    @Test
+    void searchWithParallelCount() throws Exception {
+
+        long parallelBefore = searchCountExecutor.getParallel();
+        long fallbacksBefore = searchCountExecutor.getFallbacks();
+
+        mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("name", "Budhi")
+                        .queryParam("page", "1")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "test")
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<List<ContactResponse>> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+
+            Assertions.assertNull(response.getErrors());
+            Assertions.assertEquals(10, response.getData().size());
+            Assertions.assertEquals(1, response.getPaging().getCurrentPage());
+            Assertions.assertEquals(3, response.getPaging().getTotalPage()); // 25 data, 10 per halaman
+            Assertions.assertEquals(10, response.getPaging().getSize());
+        });
+
+        // hanya satu request, pool koneksi (minimum-idle 10) dan thread pool count idle, jadi count harus lewat jalur parallel
+        Assertions.assertEquals(parallelBefore + 1, searchCountExecutor.getParallel());
+        Assertions.assertEquals(fallbacksBefore, searchCountExecutor.getFallbacks());
+
+    }
+
+}
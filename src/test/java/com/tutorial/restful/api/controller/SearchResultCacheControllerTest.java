@@ -0,0 +1,107 @@
+package com.tutorial.restful.api.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tutorial.restful.api.dto.ContactResponse;
+import com.tutorial.restful.api.dto.CreateContactRequest;
+import com.tutorial.restful.api.dto.WebResponse;
+import com.tutorial.restful.api.entity.User;
+import com.tutorial.restful.api.repository.ContactRepository;
+import com.tutorial.restful.api.service.SearchResultCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "app.search-cache.enabled=true"
+})
+@AutoConfigureMockMvc
+@Import(ContactFixture.class)
+class SearchResultCacheControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ContactFixture contactFixture;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = contactFixture.reset(5);
+
+        // data di ganti langsung lewat repository, jadi cache user ini harus di buang
+        searchResultCache.invalidate("test");
+    }
+
+    private WebResponse<List<ContactResponse>> search() throws Exception {
+        MvcResult result = mockMvc.perform(
+                get("/api/contacts")
+                        .queryParam("name", "budhi")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "test")
+        ).andExpectAll(
+                status().isOk()
+        ).andReturn();
+
+        return objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+        });
+    }
+
+    @Test
+    void cacheHitUntilContactChanged() throws Exception {
+
+        Assertions.assertEquals(5, search().getData().size());
+        long hits = searchResultCache.getHits();
+
+        // insert langsung lewat repository tidak menaikkan generation, jadi search berikutnya masih dari cache
+        contactRepository.save(contactFixture.contact(user, "Budhi5", "0899991"));
+        Assertions.assertEquals(5, search().getData().size());
+        Assertions.assertEquals(hits + 1, searchResultCache.getHits());
+
+        CreateContactRequest request = new CreateContactRequest();
+        request.setFirstName("Budhi6");
+        request.setLastName("Octaviansyah");
+        request.setEmail("budhi6@example.com");
+        request.setPhone("0899991");
+
+        mockMvc.perform(
+                post("/api/contacts")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                        .header("X-API-TOKEN", "test")
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        // create lewat API membuang cache user, query ulang ke DB
+        WebResponse<List<ContactResponse>> response = search();
+        Assertions.assertEquals(7, response.getData().size());
+        Assertions.assertEquals(hits + 1, searchResultCache.getHits());
+
+    }
+
+}
@@ -0,0 +1,171 @@
+package com.tutorial.restful.api.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tutorial.restful.api.dto.LoginUserRequest;
+import com.tutorial.restful.api.dto.TokenResponse;
+import com.tutorial.restful.api.dto.UserResponse;
+import com.tutorial.restful.api.dto.WebResponse;
+import com.tutorial.restful.api.repository.SessionRepository;
+import com.tutorial.restful.api.repository.UserRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "app.signed-token.enabled=true",
+        "app.signed-token.keys=k1:c2lnbmVkLXRva2VuLXRlc3Qta2V5LTMyLWJ5dGVzLSE=",
+        "app.signed-token.active-key=k1"
+})
+@AutoConfigureMockMvc
+@Import(ContactFixture.class)
+class SignedTokenControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ContactFixture contactFixture;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        contactFixture.reset(0);
+
+        // session opaque "test" dari fixture tidak di pakai, test memastikan login signed token tidak menulis ke sessions
+        sessionRepository.deleteAll();
+    }
+
+    private String login() throws Exception {
+        LoginUserRequest request = new LoginUserRequest();
+        request.setUsername("test");
+        request.setPassword("rahasia");
+
+        MvcResult mvcResult = mockMvc.perform(
+                post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+        ).andExpect(
+                request().asyncStarted() // BCrypt di proses async di thread pool PasswordHasher
+        ).andReturn();
+
+        MvcResult result = mockMvc.perform(
+                asyncDispatch(mvcResult)
+        ).andExpectAll(
+                status().isOk()
+        ).andReturn();
+
+        WebResponse<TokenResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+        });
+
+        return response.getData().getToken();
+    }
+
+    @Test
+    void loginIssueSignedTokenWithoutStoringIt() throws Exception {
+
+        String token = login();
+
+        Assertions.assertTrue(token.startsWith("v1.k1."));
+
+        // signed token tidak di simpan di tabel sessions
+        Assertions.assertTrue(sessionRepository.findTokenHashesByUsername("test").isEmpty());
+
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", token)
+        ).andExpectAll(
+                status().isOk()
+        ).andDo(result -> {
+            WebResponse<UserResponse> response = objectMapper.readValue(result.getResponse().getContentAsString(), new TypeReference<>() {
+            });
+
+            Assertions.assertNull(response.getErrors());
+            Assertions.assertEquals("test", response.getData().getUsername());
+            Assertions.assertEquals("Test", response.getData().getName());
+        });
+
+    }
+
+    @Test
+    void tamperedSignedTokenUnauthorized() throws Exception {
+
+        String token = login();
+
+        // ganti username di payload, signature tidak cocok lagi
+        String[] parts = token.split("\\.");
+        parts[2] = "YWRtaW4";
+        String tampered = String.join(".", parts);
+
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", tampered)
+        ).andExpectAll(
+                status().isUnauthorized()
+        );
+
+    }
+
+    @Test
+    void logoutRevokeSignedToken() throws Exception {
+
+        String token = login();
+
+        mockMvc.perform(
+                delete("/api/auth/logout")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", token)
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", token)
+        ).andExpectAll(
+                status().isUnauthorized()
+        );
+
+    }
+
+    @Test
+    void deletedUserUnauthorized() throws Exception {
+
+        String token = login();
+
+        // signature dan expiredAt masih valid, tapi user sudah tidak ada. harus 401, bukan 500 dari EntityNotFoundException
+        userRepository.deleteAll();
+
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", token)
+        ).andExpectAll(
+                status().isUnauthorized()
+        );
+
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.tutorial.restful.api.controller;
+
+import com.tutorial.restful.api.entity.Session;
+import com.tutorial.restful.api.entity.User;
+import com.tutorial.restful.api.repository.SessionRepository;
+import com.tutorial.restful.api.security.SessionExpiry;
+import com.tutorial.restful.api.security.SessionTokens;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "app.session.sliding-enabled=true",
+        "app.session.sliding-flush-interval-ms=3600000" // flush di panggil manual dari test
+})
+@AutoConfigureMockMvc
+@Import(ContactFixture.class)
+class SlidingSessionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ContactFixture contactFixture;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private SessionExpiry sessionExpiry;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = contactFixture.reset(0);
+
+        // session "test" dari fixture di ganti createSession() dengan expiredAt milik masing masing test
+        sessionRepository.deleteAll();
+    }
+
+    private void createSession(String token, long expiredAt) {
+        Session session = new Session();
+        session.setTokenHash(SessionTokens.hash(token));
+        session.setUser(user);
+        session.setCreatedAt(System.currentTimeMillis());
+        session.setExpiredAt(expiredAt);
+        sessionRepository.save(session);
+    }
+
+    @Test
+    void requestExtendTokenAfterFlush() throws Exception {
+
+        long expiredAt = System.currentTimeMillis() + 60000L; // sisa 1 menit
+        createSession("test", expiredAt);
+
+        // beberapa request hanya menghasilkan satu perpanjangan di memory, belum ada write ke DB
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(
+                    get("/api/users/current")
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header("X-API-TOKEN", "test")
+            ).andExpectAll(
+                    status().isOk()
+            );
+        }
+
+        Assertions.assertEquals(expiredAt, sessionRepository.findById(SessionTokens.hash("test")).orElseThrow().getExpiredAt());
+
+        sessionExpiry.flush();
+
+        Long extended = sessionRepository.findById(SessionTokens.hash("test")).orElseThrow().getExpiredAt();
+        Assertions.assertTrue(extended > System.currentTimeMillis() + 1000L * 60 * 60 * 47);
+
+    }
+
+    @Test
+    void logoutTokenNotExtended() throws Exception {
+
+        createSession("test", System.currentTimeMillis() + 60000L);
+
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "test")
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        mockMvc.perform(
+                delete("/api/auth/logout")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "test")
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        sessionExpiry.flush();
+
+        Assertions.assertFalse(sessionRepository.existsById(SessionTokens.hash("test")));
+
+    }
+
+}
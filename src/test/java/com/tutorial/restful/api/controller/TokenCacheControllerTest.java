@@ -0,0 +1,174 @@
+package com.tutorial.restful.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tutorial.restful.api.dto.UpdateUserRequest;
+import com.tutorial.restful.api.entity.User;
+import com.tutorial.restful.api.repository.SessionRepository;
+import com.tutorial.restful.api.security.BCrypt;
+import com.tutorial.restful.api.security.SessionTokens;
+import com.tutorial.restful.api.security.TokenCache;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "app.token-cache.enabled=true",
+        "app.token-cache.ttl-ms=1000"
+})
+@AutoConfigureMockMvc
+@Import(ContactFixture.class)
+class TokenCacheControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ContactFixture contactFixture;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TokenCache tokenCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final String tokenHash = SessionTokens.hash("test");
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = contactFixture.reset(0);
+
+        // data di ganti langsung lewat repository, entry dari test sebelumnya sudah tidak berlaku
+        tokenCache.invalidate(tokenHash);
+    }
+
+    private void getCurrent(int status) throws Exception {
+        mockMvc.perform(
+                get("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "test")
+        ).andExpectAll(
+                status().is(status)
+        );
+    }
+
+    @Test
+    void cacheHit() throws Exception {
+
+        long hits = tokenCache.getHits();
+        getCurrent(200); // miss, session di ambil dari DB lalu masuk cache
+        Assertions.assertEquals(hits, tokenCache.getHits());
+
+        // session di hapus langsung dari DB (tidak lewat logout), request berikutnya tetap dari cache sampai TTL habis
+        sessionRepository.deleteAll();
+        getCurrent(200);
+        Assertions.assertEquals(hits + 1, tokenCache.getHits());
+
+    }
+
+    @Test
+    void cacheExpired() throws Exception {
+
+        getCurrent(200);
+        sessionRepository.deleteAll();
+
+        // setelah ttl-ms entry di buang, session di cek lagi ke DB
+        Thread.sleep(1100);
+        long misses = tokenCache.getMisses();
+        getCurrent(401);
+        Assertions.assertEquals(misses + 1, tokenCache.getMisses());
+
+    }
+
+    @Test
+    void entryNotLongerThanSession() throws Exception {
+
+        // session yang tinggal 200 ms, entry cache ikut expired bersama session walaupun ttl-ms 1000
+        tokenCache.put(tokenHash, user, System.currentTimeMillis() + 200);
+        Assertions.assertNotNull(tokenCache.get(tokenHash));
+
+        Thread.sleep(300);
+        Assertions.assertNull(tokenCache.get(tokenHash));
+
+    }
+
+    @Test
+    void entryFollowExtendedSession() throws Exception {
+
+        // session di perpanjang sliding expiry, entry cache ikut expired_at baru (bukan yang 200 ms)
+        long extended = System.currentTimeMillis() + 100000;
+        tokenCache.put(tokenHash, user, System.currentTimeMillis() + 200);
+        tokenCache.extend(tokenHash, extended);
+
+        Thread.sleep(300);
+        Assertions.assertEquals(extended, tokenCache.get(tokenHash).expiredAt());
+
+    }
+
+    @Test
+    void invalidateOnLogout() throws Exception {
+
+        getCurrent(200);
+        Assertions.assertNotNull(tokenCache.get(tokenHash));
+
+        mockMvc.perform(
+                delete("/api/auth/logout")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header("X-API-TOKEN", "test")
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        // tidak menunggu TTL, token langsung di tolak
+        Assertions.assertNull(tokenCache.get(tokenHash));
+        getCurrent(401);
+
+    }
+
+    @Test
+    void invalidateOnPasswordChange() throws Exception {
+
+        getCurrent(200);
+        Assertions.assertTrue(BCrypt.checkpw("rahasia", tokenCache.get(tokenHash).user().getPassword()));
+
+        UpdateUserRequest request = new UpdateUserRequest();
+        request.setPassword("rahasiabaru");
+
+        MvcResult mvcResult = mockMvc.perform(
+                patch("/api/users/current")
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request))
+                        .header("X-API-TOKEN", "test")
+        ).andExpect(
+                request().asyncStarted() // BCrypt di proses async di thread pool PasswordHasher
+        ).andReturn();
+
+        mockMvc.perform(
+                asyncDispatch(mvcResult)
+        ).andExpectAll(
+                status().isOk()
+        );
+
+        // entry dengan password lama di buang, request berikutnya mengisi cache dari DB
+        Assertions.assertNull(tokenCache.get(tokenHash));
+        getCurrent(200);
+        Assertions.assertTrue(BCrypt.checkpw("rahasiabaru", tokenCache.get(tokenHash).user().getPassword()));
+
+    }
+
+}
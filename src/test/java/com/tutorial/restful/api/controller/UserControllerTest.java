@@ -6,9 +6,12 @@ import com.tutorial.restful.api.dto.RegisterUserRequest;
 import com.tutorial.restful.api.dto.UpdateUserRequest;
 import com.tutorial.restful.api.dto.UserResponse;
 import com.tutorial.restful.api.dto.WebResponse;
+import com.tutorial.restful.api.entity.Session;
 import com.tutorial.restful.api.entity.User;
+import com.tutorial.restful.api.repository.SessionRepository;
 import com.tutorial.restful.api.repository.UserRepository;
 import com.tutorial.restful.api.security.BCrypt;
+import com.tutorial.restful.api.security.SessionTokens;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -36,6 +39,9 @@ class UserControllerTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SessionRepository sessionRepository;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -53,11 +59,17 @@ class UserControllerTest {
                 .name("Test")
                 .build();
 
-        mockMvc.perform(
+        MvcResult mvcResult = mockMvc.perform(
                 post("/api/users")
                         .accept(MediaType.APPLICATION_JSON)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request))
+        ).andExpect(
+                request().asyncStarted() // BCrypt di proses async di thread pool PasswordHasher
+        ).andReturn();
+
+        mockMvc.perform(
+                asyncDispatch(mvcResult)
         ).andExpectAll(
                 status().isOk()
         ).andDo(new ResultHandler() {
@@ -323,10 +335,16 @@ class UserControllerTest {
         user.setUsername("test");
         user.setName("Test");
         user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt()));
-        user.setToken("test");
-        user.setTokenExpiredAt(System.currentTimeMillis() + 10000000000L);
         userRepository.save(user);
 
+        // token login ada di tabel sessions, yang di simpan hanya hash token
+        Session session = new Session();
+        session.setTokenHash(SessionTokens.hash("test"));
+        session.setUser(user);
+        session.setCreatedAt(System.currentTimeMillis());
+        session.setExpiredAt(System.currentTimeMillis() + 10000000000L);
+        sessionRepository.save(session);
+
         mockMvc.perform(
                 get("/api/users/current")
                         .accept(MediaType.APPLICATION_JSON)
@@ -400,10 +418,16 @@ class UserControllerTest {
         user.setUsername("test");
         user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt()));
         user.setName("Test");
-        user.setToken("test");
-        user.setTokenExpiredAt(System.currentTimeMillis() - 10000000);
         userRepository.save(user);
 
+        // token login ada di tabel sessions, yang di simpan hanya hash token
+        Session session = new Session();
+        session.setTokenHash(SessionTokens.hash("test"));
+        session.setUser(user);
+        session.setCreatedAt(System.currentTimeMillis());
+        session.setExpiredAt(System.currentTimeMillis() - 10000000);
+        sessionRepository.save(session);
+
         mockMvc.perform(
                 get("/api/users/current")
                         .accept(MediaType.APPLICATION_JSON)
@@ -475,10 +499,16 @@ class UserControllerTest {
         user.setName("test");
         user.setUsername("Test");
         user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt()));
-        user.setToken("test");
-        user.setTokenExpiredAt(System.currentTimeMillis() + 10000000000L);
         userRepository.save(user);
 
+        // token login ada di tabel sessions, yang di simpan hanya hash token
+        Session session = new Session();
+        session.setTokenHash(SessionTokens.hash("test"));
+        session.setUser(user);
+        session.setCreatedAt(System.currentTimeMillis());
+        session.setExpiredAt(System.currentTimeMillis() + 10000000000L);
+        sessionRepository.save(session);
+
         // request body json
         UpdateUserRequest request = new UpdateUserRequest();
         request.setName("");
@@ -547,21 +577,33 @@ class UserControllerTest {
         user.setUsername("Test");
         user.setName("test");
         user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt()));
-        user.setToken("test");
-        user.setTokenExpiredAt(System.currentTimeMillis() + 10000000000L);
         userRepository.save(user);
 
+        // token login ada di tabel sessions, yang di simpan hanya hash token
+        Session session = new Session();
+        session.setTokenHash(SessionTokens.hash("test"));
+        session.setUser(user);
+        session.setCreatedAt(System.currentTimeMillis());
+        session.setExpiredAt(System.currentTimeMillis() + 10000000000L);
+        sessionRepository.save(session);
+
         // request body json
         UpdateUserRequest request = new UpdateUserRequest();
         request.setName("Budhi");
         request.setPassword("budhi123123");
 
-        mockMvc.perform(
+        MvcResult mvcResult = mockMvc.perform(
                 patch("/api/users/current")
                         .accept(MediaType.APPLICATION_JSON)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request))
                         .header("X-API-TOKEN", "test")
+        ).andExpect(
+                request().asyncStarted() // BCrypt di proses async di thread pool PasswordHasher
+        ).andReturn();
+
+        mockMvc.perform(
+                asyncDispatch(mvcResult)
         ).andExpectAll(
                 status().isOk()
         ).andDo(result -> {
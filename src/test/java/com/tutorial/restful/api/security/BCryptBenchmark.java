@@ -0,0 +1,68 @@
+package com.tutorial.restful.api.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+// benchmark manual, bukan bagian dari mvn test (nama class tidak berakhiran Test)
+// jalankan main() dari IDE, lihat kolom gc.alloc.rate.norm untuk byte yang di alokasi per operasi
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+public class BCryptBenchmark {
+
+    @Param({"4", "10"})
+    private int logRounds;
+
+    private String salt;
+
+    private String hashed;
+
+    @Setup
+    public void setUp() {
+        salt = BCrypt.gensalt(logRounds);
+        hashed = BCrypt.hashpw("rahasia", salt);
+    }
+
+    @Benchmark
+    public String hashpw() {
+        return BCrypt.hashpw("rahasia", salt);
+    }
+
+    @Benchmark
+    public boolean checkpw() {
+        return BCrypt.checkpw("rahasia", hashed);
+    }
+
+    @Benchmark
+    public String gensalt() {
+        return BCrypt.gensalt(logRounds);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BCryptBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+
+}
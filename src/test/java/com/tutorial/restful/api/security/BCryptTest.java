@@ -0,0 +1,144 @@
+package com.tutorial.restful.api.security;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+class BCryptTest {
+
+    // hash referensi dari implementasi BCrypt sebelumnya (yang masih alokasi buffer baru setiap hash)
+    // hasil hashpw harus tetap sama persis, supaya password yang sudah tersimpan di DB tetap bisa login
+    // {password, salt, hash}: password kosong, batas 72 byte (termasuk karakter multi byte yang terpotong di byte ke 72),
+    // non ASCII, surrogate tanpa pasangan, dan semua revisi $2a / $2b / $2y / $2x / $2
+    private static final String[][] VECTORS = {
+            {"", "$2a$04$zOpAgJiM1g2vEuG1Y6n6a.", "$2a$04$zOpAgJiM1g2vEuG1Y6n6a.pBj2g15P4QS9hI2RsV7kObLKc3WrHI2"},
+            {"", "$2x$04$n7X0MBoaD5/A0Uo5C3m...", "$2x$04$n7X0MBoaD5/A0Uo5C3m...Y.arGmour4a/QdAkjwgsHzslA9VQL0W"},
+            {"a", "$2b$05$7IHFVIiogN3m2ZH/aL5EEe", "$2b$05$7IHFVIiogN3m2ZH/aL5EEeTtYfSpXtoRlA.rGUX8yGVAcGDtDo676"},
+            {"a", "$2$04$FX..r.O2gTrwpvwsS5vwzO", "$2$04$FX..r.O2gTrwpvwsS5vwzORzedF0BlGRibnA9/HsolTQeIw9QzlZ."},
+            {"rahasia", "$2a$04$qa/zL0hKBTsVp3hbm8d.P.", "$2a$04$qa/zL0hKBTsVp3hbm8d.P.DSu7hqS6U83CGb6dnqNMEal4ZtQ1QWO"},
+            {"rahasia", "$2y$05$ARi5x0QWzra8x7uuRlmWG.", "$2y$05$ARi5x0QWzra8x7uuRlmWG.1o6CXlemJTaJZHAPeAQ5qRmtWLTfQ.a"},
+            {"rahasia", "$2x$04$QQM5fJfaxCy7xpDa57ttNu", "$2x$04$QQM5fJfaxCy7xpDa57ttNuVkqkThFRPgy2ksLYhPCw3p53HnwdLa6"},
+            {"U*U*U", "$2b$04$g6MMoSrApQxybqkmMWPU.e", "$2b$04$g6MMoSrApQxybqkmMWPU.e0KBxX92A/wB08x0ABiVhD9KtutZKOwq"},
+            {"0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789chars after 72 are ignored",
+                    "$2a$04$2hdIjT4cpb8FBcW3bbFC6.", "$2a$04$2hdIjT4cpb8FBcW3bbFC6.HLE479.y968sSt2ML653TzS/To4EiP6"},
+            {"été café", "$2b$04$Ry0mALTvN7569NkqArSmzO", "$2b$04$Ry0mALTvN7569NkqArSmzOlmwuSjvENBggBDSVZYXUoO3wJcoJ3BK"},
+            {"😀 emoji", "$2a$04$ZwWWPN99UITKUesHqSE8yO", "$2a$04$ZwWWPN99UITKUesHqSE8yODu8nj4YDFzYqpM7Dh0FoQVwrkY6CtYG"},
+            {"lone \ud83d surrogate", "$2y$04$wN9udIwhfaMJY.yheDPPPO", "$2y$04$wN9udIwhfaMJY.yheDPPPOU3vYNKZic/lM.6NMpSEwq/1HUF7L3oe"},
+            {"ÿ££££", "$2a$04$Inx8xP5EajR1snPvZXGhLO", "$2a$04$Inx8xP5EajR1snPvZXGhLO88To/wyQVhM4/SJ.xJMRzcdM4ONaNXi"},
+            {"ÿ££££", "$2x$04$hj2edT913VJhOnrnaogbfO", "$2x$04$hj2edT913VJhOnrnaogbfOZ/TgQx2EjaNb81kgIpkhuBFsLgsbFMW"},
+            {"", "$2a$04$xMDmWjqau2G84ERV0U1G5O", "$2a$04$xMDmWjqau2G84ERV0U1G5OZd4Y97hYzwkvumAcUYevkEE36hC6hZ6"},
+            {" ", "$2b$04$Mj0T6mFYQvVdZHJCPpJ02e", "$2b$04$Mj0T6mFYQvVdZHJCPpJ02ez.BLYznGhUOp4F6k0KUr/JyQZ44vJxy"},
+            {"a", "$2y$04$BxFRDUNt9fnuKCkig86GCu", "$2y$04$BxFRDUNt9fnuKCkig86GCuQcy5tCHxXUkwvlFTXvEpc8HoOFIfIS2"},
+            {"ab", "$2x$04$2tPQyhxMJD920ypqupK95.", "$2x$04$2tPQyhxMJD920ypqupK95.nk.jlXabuHIqe.LlMPVMYC607bcZ5/y"},
+            {"abc", "$2$04$FFoQcAPrqobrNDe5woeVuO", "$2$04$FFoQcAPrqobrNDe5woeVuO1.M1D4UQYlcbTw.bHndc5EEKkbSzW9q"},
+            {"abcdefghijklmnopqrstuvwxyz", "$2a$05$lLRCE5cXwT5R72FUAAkiV.", "$2a$05$lLRCE5cXwT5R72FUAAkiV.WgJ5n3qxn5ekuVvG.c7/nMDebJKOdJG"},
+            {"rahasia", "$2b$04$bnPBw4LD6iDNQwbLkeeTYe", "$2b$04$bnPBw4LD6iDNQwbLkeeTYeEpYJqNNs.ILGxKO2eH9qoC3sIP5LC16"},
+            {"Rahasia123!", "$2y$04$zU8ChkLAaeH8OiYFH5.euu", "$2y$04$zU8ChkLAaeH8OiYFH5.euuPzpcf4LwUxEGqcTh/DfguhX9ec9UGFW"},
+            {"password", "$2x$04$UssqJNmv9tl4npQxeN5slO", "$2x$04$UssqJNmv9tl4npQxeN5slOL000Vce0bpXW3lkjkd.U6v0lDAD0HX2"},
+            {"U*U", "$2$04$2zHSoLc6eAGvyMgHFvWgfO", "$2$04$2zHSoLc6eAGvyMgHFvWgfO5x70VWKAc6dOU2QHSgSBt2yl24pVHk."},
+            {"U*U*", "$2a$04$pRrQUCmCh1OnPcopnckzTe", "$2a$04$pRrQUCmCh1OnPcopnckzTe0Ditx0vcH9TfaYJW3Eh9d2/bSRGmz/C"},
+            {"\u0000", "$2b$04$tNa4tC5ikGBG4djfLb4Myu", "$2b$04$tNa4tC5ikGBG4djfLb4MyuxYyrudbDuaR.cc7gHRY4dagj.hCVdpS"},
+            {"a\u0000b", "$2y$04$6O/WUxCuFg8GqYGWHE5C1u", "$2y$04$6O/WUxCuFg8GqYGWHE5C1uhSYHn5Wj9kjSd1YqsKIphqHIXbOyWjm"},
+            {"\t\n", "$2x$04$lqO4sC18dk3qPW3wiXjr0e", "$2x$04$lqO4sC18dk3qPW3wiXjr0eYW7oH8xQvbOpMJg9XKGMLFiTIRPOBdC"},
+            {"trailing space ", "$2$04$PVAswGXh3BS743LKVOxSeO", "$2$04$PVAswGXh3BS743LKVOxSeOm3tJDDI638EoWh1cD4pvd1WwE5DMING"},
+            {"~!@#$%^&*()_+`-={}|[]\\:\";'<>?,./", "$2a$04$4xMl64alUqRlAerOojjSuu", "$2a$04$4xMl64alUqRlAerOojjSuuDMsOlnBieV0DZJRAxeR6AekZB4LdyFe"},
+            {"0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ012345678", "$2b$05$Oy0vL6NSFSZqs4Q0EK02ve", "$2b$05$Oy0vL6NSFSZqs4Q0EK02vednzgqlKIFRtubPAtpoTYQerj8QsXp7y"},
+            {"0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789", "$2y$04$RHXh5dskW5sTbazEFoZ47.", "$2y$04$RHXh5dskW5sTbazEFoZ47.bPbLRFJy4tExaa1HyaZQ2qLqiFD6seW"},
+            {"0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789x", "$2x$04$AUsLTIEsOAFH90OIicNEYO", "$2x$04$AUsLTIEsOAFH90OIicNEYOlyQ8IdglzWUrTum34L4OqC0K9eNrGb6"},
+            {"0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ01234567890123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789", "$2$04$2lpKzvD3aTjfgGLc1B.MlO", "$2$04$2lpKzvD3aTjfgGLc1B.MlOou8dUiWrhBuH.2uk92F1RtjWmLWdhIC"},
+            {"0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ01234567é", "$2a$04$ofiA861zmCETxJOaUXF./.", "$2a$04$ofiA861zmCETxJOaUXF./.voJn.8.fo0UzJyJwwo0bVi4XDbJYQUO"},
+            {"0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ012345678é", "$2b$04$Ez9j7hDkY0Gl9zaH7zntDe", "$2b$04$Ez9j7hDkY0Gl9zaH7zntDejrLw1s7ff0LQH4qCBxkPBO009z96/WW"},
+            {"0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ012345678😀", "$2y$04$7voNyBwJkS9.uJXobOejSO", "$2y$04$7voNyBwJkS9.uJXobOejSOnwhV1NQzR5NFrwPuslB7b/YhMOYlXaC"},
+            {"0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456😀", "$2x$04$4AUzGJkPZ6QcAM2S5cZkY.", "$2x$04$4AUzGJkPZ6QcAM2S5cZkY.kT9iEGsRN7ZdG023CpToh/MKhSNxT7m"},
+            {"ÿ", "$2$04$BGHrlNuiMmi6fdJgfbnKCu", "$2$04$BGHrlNuiMmi6fdJgfbnKCuSlyOcABp8/kZmCvIx2vqJtuISDsk8xG"},
+            {"ÿÿ", "$2a$04$KaenRQ59eoF27YAU4SuxEe", "$2a$04$KaenRQ59eoF27YAU4SuxEegK3i3thNm/GqzFvSubhJXHcZXR3NqeK"},
+            {"£", "$2b$04$wosXn3Kp5DLQ/EWkck2oR.", "$2b$04$wosXn3Kp5DLQ/EWkck2oR.t.eaR3T6s0POBy2Dvme.Ppy8RNMnDRe"},
+            {"1£", "$2y$05$qhuZtL4/zF5gKGhmEtCnwu", "$2y$05$qhuZtL4/zF5gKGhmEtCnwuW/iruypRGD6zguJy//4Hy/dbukj8t82"},
+            {"ÿ££££", "$2x$04$afcCgS3TisMWMBwSJ.J5Ye", "$2x$04$afcCgS3TisMWMBwSJ.J5YepBLosZjPllzSFaOYuT1DreWCUaee2qC"},
+            {"ÿa", "$2$04$7aeU1ercoR21UB/9mM1siO", "$2$04$7aeU1ercoR21UB/9mM1siOfECkwuZLDvjzrLY0z65WLFuSbCGwehq"},
+            {"é", "$2a$04$vmbdoD3A0S3i9kYJql2Gru", "$2a$04$vmbdoD3A0S3i9kYJql2Grun2iGD6vPqQhFMTA9CAapW.gmsizM7wS"},
+            {"été café", "$2b$04$ACHHoP/aoH8r/dRBq7dIle", "$2b$04$ACHHoP/aoH8r/dRBq7dIleVFqyE/HemLUst2q4GO5ZhFhSApAxvZK"},
+            {"\udc00", "$2y$04$EsfnoXAd8e2sKQJ2PXvf1e", "$2y$04$EsfnoXAd8e2sKQJ2PXvf1eh6WwD8hOEDlsGTdI7s10ROLHlcGYeEK"},
+            {"abc\ud800", "$2x$04$vS3qVqYgmqsY5BQXGby11O", "$2x$04$vS3qVqYgmqsY5BQXGby11O6.AxmJHrISx54dPvlAM6VBVGD1nuw5u"},
+            {"𐀀", "$2$04$eBnQX6FATA1pG5.Fc1n33e", "$2$04$eBnQX6FATA1pG5.Fc1n33e6SR9JiVBMKGBI8IrnqxmjcU7D3kzLZm"},
+            {"日本語のパスワード", "$2a$04$iuA8u8LCtFdj/kUjBVxJrO", "$2a$04$iuA8u8LCtFdj/kUjBVxJrORycq5W.h6sA4EsjqGO.w.gINiO7oFqm"},
+            {"пароль", "$2b$04$NLhfwm3J6nxzjmWMV/Ad3e", "$2b$04$NLhfwm3J6nxzjmWMV/Ad3e6HseQMBU.4xzQiZT9cqyfVXpUUG5kF6"},
+            {"كلمة السر", "$2y$04$hrtRQva7E3xhiWAjLwLQu.", "$2y$04$hrtRQva7E3xhiWAjLwLQu.ARR1qU8g/STShMJJ2QEXjQY28rUQ0LG"},
+            {"🔑🔑🔑", "$2x$05$8Uzyh7giCBvZJ9f5.4xw7.", "$2x$05$8Uzyh7giCBvZJ9f5.4xw7.5KiItBLY0epTWJseL2Z8tm6uP3CKlXu"},
+            {"éééééééééééééééééééééééééééééééééééééééé", "$2$04$maQdZLbUShTSjnwXS6Mkzu", "$2$04$maQdZLbUShTSjnwXS6MkzuyiMuHrxSlcnXaANxmAsfdIGo9Xra8qG"},
+            {"日日日日日日日日日日日日日日日日日日日日日日日日日日日日日日", "$2a$04$J/Zr4sHYzqtrILPbUSTG/.", "$2a$04$J/Zr4sHYzqtrILPbUSTG/.MyDawu6jmq.VHxlrqDXVE.dtO10.HeK"},
+            {"", "$2b$04$2S3We0vBy1OeL/AHpxrO4u", "$2b$04$2S3We0vBy1OeL/AHpxrO4u/9TrxIsfd9qZZv9koniVQw3yziiO.Xe"},
+            {" ", "$2y$04$f317O8VA/D1DvvnFPHjct.", "$2y$04$f317O8VA/D1DvvnFPHjct.CHlysAdd5NU4.vf9n0qA0hjvApW8HcS"},
+            {"a", "$2x$04$C8PWM.spSLgLL6aHtyQdwO", "$2x$04$C8PWM.spSLgLL6aHtyQdwOS.McKeFHelyj9gsqOO8gtgmJEntT45K"},
+            {"ab", "$2$04$0rmdKqE2DH7Y.NlwfDS9Y.", "$2$04$0rmdKqE2DH7Y.NlwfDS9Y.B1qpCvoWsQipwxifretMp3lBky6LDz."},
+            {"abc", "$2a$04$VjamJWzSNQpNwLkNcUmPJu", "$2a$04$VjamJWzSNQpNwLkNcUmPJu/RxWWDgfqbaN9unvuLfhVbqn82Pb3tK"},
+            {"abcdefghijklmnopqrstuvwxyz", "$2b$04$5zOnTNkdebGpfxPNtauNoe", "$2b$04$5zOnTNkdebGpfxPNtauNoeOMfrsCwc1nuhsPo4OouJxZmrhuNre9e"},
+            {"rahasia", "$2y$04$2.QGHciECxhpfPAnXx.bPO", "$2y$04$2.QGHciECxhpfPAnXx.bPOZ4AnVc6M3UZPIpfdBWfDT6oXN517Uc."},
+            {"Rahasia123!", "$2x$04$5uPr9CbD45teA912p5jVgO", "$2x$04$5uPr9CbD45teA912p5jVgOaeWqXJkWqIf0hcKrcogCf3EvMYriHyu"},
+            {"password", "$2$05$GE3IwYI/x1/HDgyEx32HNu", "$2$05$GE3IwYI/x1/HDgyEx32HNuCRhENKTptxDa.FtRVCgWKHJCwU3rVR6"},
+            {"U*U", "$2a$04$sb4NmvH/10.eBHwviVUpW.", "$2a$04$sb4NmvH/10.eBHwviVUpW.UQrM2SQ6lLzH/oI0RZsWEGggzXVBMY2"},
+            {"U*U*", "$2b$04$jIp2gywUK.9bao7MF4SR9O", "$2b$04$jIp2gywUK.9bao7MF4SR9OOp.YMunY90MyYFgBlhB/PoBg7aMYqgO"},
+            {"\u0000", "$2y$04$0..rGc.AN1fFIB4/YaWoQe", "$2y$04$0..rGc.AN1fFIB4/YaWoQenMt1uzUh37EGyqLbigL/71Lt5KVMUkm"},
+            {"a\u0000b", "$2x$04$yChe9fgab6QGrQ8p0UWYAe", "$2x$04$yChe9fgab6QGrQ8p0UWYAeaMAm4QB6kmHqQ6bQ5ymurddPMedT3Da"},
+            {"\t\n", "$2$04$SsC3AnoKxW1kfqgfOJOc0O", "$2$04$SsC3AnoKxW1kfqgfOJOc0OZgdb.tF.CzINqUPUof8LM/YpIlQFUvC"},
+            {"trailing space ", "$2a$04$K0CUGrcb7SHeOW/Cn83oBO", "$2a$04$K0CUGrcb7SHeOW/Cn83oBOmJAiV15cKG1Zgo4X7mDWoPe/q72ghW6"},
+            {"~!@#$%^&*()_+`-={}|[]\\:\";'<>?,./", "$2b$04$u33/5JoZPXGRCPTmSeO3xe", "$2b$04$u33/5JoZPXGRCPTmSeO3xe0FeSHg4LwJYDnaTYN9wG9rvU2KVIZXi"},
+            {"0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ012345678", "$2y$04$t205V2BSeT5NMxxlsGSIc.", "$2y$04$t205V2BSeT5NMxxlsGSIc.s24ZALEGaTe27MKJ02VSDv0hIo2.QDa"},
+            {"0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789", "$2x$04$30zbaoJEon/FJNd3jCJwp.", "$2x$04$30zbaoJEon/FJNd3jCJwp.njB08yYQLAIkF7v.TdVoFqym0V5P5W2"},
+            {"0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789x", "$2$04$SzbfI.VQGg6.976sWln2hO", "$2$04$SzbfI.VQGg6.976sWln2hOJCZuBBX0SEby9u/ie63vGlx7HW3YPHK"},
+            {"0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ01234567890123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789", "$2a$05$9Hm8XtfxbX4th00ZXZC.9O", "$2a$05$9Hm8XtfxbX4th00ZXZC.9OajQUkeDwtY/F5V4qqC3.LzNs2IeN7Ym"},
+            {"0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ01234567é", "$2b$04$5fbxtwOiY4tIj7EnsBUjje", "$2b$04$5fbxtwOiY4tIj7EnsBUjjea6xAUH/OqssF7Jozc1vveEccu3QCVny"},
+            {"0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ012345678é", "$2y$04$CZuzthMM2geVg632J3zkju", "$2y$04$CZuzthMM2geVg632J3zkju81Xxb5YIqie3F3DxSiVx/GvP8AhpvYq"},
+            {"0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ012345678😀", "$2x$04$HqyTPTkzegAViLQWnkvvCO", "$2x$04$HqyTPTkzegAViLQWnkvvCO1LBoCzxeIHntR0uHXnzq4d5U3dU/MsO"},
+            {"0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456😀", "$2$04$A.wCaEJhonHSLzhx6SmYj.", "$2$04$A.wCaEJhonHSLzhx6SmYj.9oIHyhZ22g.fWOOV4CaoPb8donb507O"},
+            {"ÿ", "$2a$04$RqQpw9Zp/YHg9zUVTNHsqu", "$2a$04$RqQpw9Zp/YHg9zUVTNHsqu3TU.8BpZfQIbQj.WwYuQQ/RJB72JRgi"},
+    };
+
+    @Test
+    void hashpwSameAsReference() {
+        for (String[] vector : VECTORS) {
+            Assertions.assertEquals(vector[2], BCrypt.hashpw(vector[0], vector[1]));
+            Assertions.assertEquals(vector[2], BCrypt.hashpw(vector[0].getBytes(StandardCharsets.UTF_8), vector[1]));
+        }
+    }
+
+    @Test
+    void checkpwSuccess() {
+        for (String[] vector : VECTORS) {
+            Assertions.assertTrue(BCrypt.checkpw(vector[0], vector[2]));
+            Assertions.assertTrue(BCrypt.checkpw(vector[0].getBytes(StandardCharsets.UTF_8), vector[2]));
+        }
+    }
+
+    @Test
+    void checkpwWrongPassword() {
+        Assertions.assertFalse(BCrypt.checkpw("salah", VECTORS[4][2]));
+        Assertions.assertFalse(BCrypt.checkpw("rahasia", VECTORS[2][2]));
+    }
+
+    @Test
+    void gensaltAndHashRoundTrip() {
+        String salt = BCrypt.gensalt(4);
+        Assertions.assertTrue(salt.startsWith("$2a$04$"));
+        Assertions.assertEquals(29, salt.length());
+
+        // context per thread di pakai ulang, hash berikutnya tidak boleh terpengaruh hash sebelumnya
+        String first = BCrypt.hashpw("rahasia", salt);
+        BCrypt.hashpw("password lain yang lebih panjang", BCrypt.gensalt("$2b", 4));
+        Assertions.assertEquals(first, BCrypt.hashpw("rahasia", salt));
+        Assertions.assertTrue(BCrypt.checkpw("rahasia", first));
+    }
+
+    @Test
+    void invalidSalt() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BCrypt.hashpw("rahasia", "$2a$04$short"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BCrypt.hashpw("rahasia", "$2c$04$abcdefghijklmnopqrstuv"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BCrypt.hashpw("rahasia", "$2a$03$abcdefghijklmnopqrstuv"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BCrypt.gensalt(32));
+
+        // revisi "$2$" tidak menambahkan byte 0, jadi password kosong tidak punya key sama sekali
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BCrypt.hashpw("", "$2$04$n7X0MBoaD5/A0Uo5C3m..."));
+    }
+
+}
@@ -0,0 +1,131 @@
+package com.tutorial.restful.api.security;
+
+import com.tutorial.restful.api.entity.Session;
+import com.tutorial.restful.api.entity.User;
+import com.tutorial.restful.api.repository.AddressRepository;
+import com.tutorial.restful.api.repository.ContactRepository;
+import com.tutorial.restful.api.repository.SessionRepository;
+import com.tutorial.restful.api.repository.TombstoneRepository;
+import com.tutorial.restful.api.repository.UserRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+
+@SpringBootTest(properties = {
+        "app.token-filter.enabled=true",
+        "app.token-filter.single-instance=true",
+        "app.token-filter.expected-insertions=1000"
+})
+class LiveTokenFilterTest {
+
+    @Autowired
+    private LiveTokenFilter liveTokenFilter;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private TombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        // urutan foreign key, contact / address dari test lain membuat delete users gagal
+        addressRepository.deleteAll();
+        contactRepository.deleteAll();
+        tombstoneRepository.deleteAll();
+        userRepository.deleteAll();
+
+        user = new User();
+        user.setUsername("test");
+        user.setName("Test");
+        user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt(4)));
+        userRepository.save(user);
+    }
+
+    private Session createSession(String token) {
+        Session session = new Session();
+        session.setTokenHash(SessionTokens.hash(token));
+        session.setUser(user);
+        session.setCreatedAt(System.currentTimeMillis());
+        session.setExpiredAt(System.currentTimeMillis() + 1000000L);
+        return sessionRepository.saveAndFlush(session);
+    }
+
+    @Test
+    void rebuildContainsExistingSessions() {
+
+        createSession("live-token");
+        liveTokenFilter.rebuild();
+
+        Assertions.assertTrue(liveTokenFilter.mightContain(SessionTokens.hash("live-token")));
+        Assertions.assertFalse(liveTokenFilter.mightContain(SessionTokens.hash("unknown-token")));
+
+    }
+
+    @Test
+    void putAfterCommitOnly() {
+
+        liveTokenFilter.rebuild();
+        String committed = SessionTokens.hash("committed-token");
+        String rolledBack = SessionTokens.hash("rolled-back-token");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            liveTokenFilter.put(committed);
+            Assertions.assertFalse(liveTokenFilter.mightContain(committed)); // belum commit
+        });
+        Assertions.assertTrue(liveTokenFilter.mightContain(committed));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            liveTokenFilter.put(rolledBack);
+            status.setRollbackOnly();
+        });
+        Assertions.assertFalse(liveTokenFilter.mightContain(rolledBack));
+
+    }
+
+    @Test
+    void loginDuringRebuildIsNotLost() {
+
+        liveTokenFilter.rebuild();
+
+        // login (insert session + put) belum commit saat rebuild jalan: snapshot rebuild tidak melihat row ini
+        // token tetap harus ada di filter baru setelah login commit
+        transactionTemplate.executeWithoutResult(status -> {
+            Session session = createSession("racing-token");
+            liveTokenFilter.put(session.getTokenHash());
+            CompletableFuture.runAsync(liveTokenFilter::rebuild).join();
+        });
+
+        Assertions.assertTrue(liveTokenFilter.mightContain(SessionTokens.hash("racing-token")));
+
+    }
+
+    @Test
+    void refuseToEnableWithoutSingleInstance() {
+
+        // token dari login di instance lain tidak ada di filter, jadi filter tidak boleh aktif di deployment multi instance
+        LiveTokenFilter filter = new LiveTokenFilter(true, 1000, 0.01, false, null);
+        Assertions.assertThrows(IllegalStateException.class, filter::checkSingleInstance);
+
+    }
+
+}
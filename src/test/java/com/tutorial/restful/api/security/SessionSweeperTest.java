@@ -0,0 +1,71 @@
+package com.tutorial.restful.api.security;
+
+import com.tutorial.restful.api.entity.Session;
+import com.tutorial.restful.api.entity.User;
+import com.tutorial.restful.api.repository.SessionRepository;
+import com.tutorial.restful.api.repository.UserRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = {
+        "app.session-sweeper.batch-size=2" // batch kecil supaya sweep jalan lebih dari satu batch
+})
+class SessionSweeperTest {
+
+    @Autowired
+    private SessionSweeper sessionSweeper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+
+        user = new User();
+        user.setUsername("test");
+        user.setName("Test");
+        user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt(4)));
+        userRepository.save(user);
+    }
+
+    private void createSession(String token, long expiredAt) {
+        Session session = new Session();
+        session.setTokenHash(SessionTokens.hash(token));
+        session.setUser(user);
+        session.setCreatedAt(System.currentTimeMillis());
+        session.setExpiredAt(expiredAt);
+        sessionRepository.save(session);
+    }
+
+    @Test
+    void sweepExpiredSessions() {
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            createSession("expired-token-" + i, now - 1000L);
+        }
+        createSession("active-token", now + 1000000L);
+
+        long before = sessionSweeper.getReclaimed();
+        sessionSweeper.sweep();
+
+        Assertions.assertEquals(5, sessionSweeper.getReclaimed() - before);
+
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertFalse(sessionRepository.existsById(SessionTokens.hash("expired-token-" + i)));
+        }
+
+        Assertions.assertTrue(sessionRepository.existsById(SessionTokens.hash("active-token")));
+
+    }
+
+}
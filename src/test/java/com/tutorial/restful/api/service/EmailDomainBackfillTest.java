@@ -0,0 +1,106 @@
+package com.tutorial.restful.api.service;
+
+import com.tutorial.restful.api.entity.Contact;
+import com.tutorial.restful.api.entity.User;
+import com.tutorial.restful.api.repository.AddressRepository;
+import com.tutorial.restful.api.repository.ContactRepository;
+import com.tutorial.restful.api.repository.TombstoneRepository;
+import com.tutorial.restful.api.repository.UserRepository;
+import com.tutorial.restful.api.security.BCrypt;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(properties = {
+        "app.email-domain-backfill.enabled=true",
+        "app.email-domain-backfill.batch-size=2",
+        "app.email-domain-backfill.max-batches=2",
+        "app.email-domain-backfill.batch-pause-ms=0",
+        "app.email-domain-backfill.interval-ms=3600000" // backfill() di panggil manual dari test
+})
+class EmailDomainBackfillTest {
+
+    @Autowired
+    private EmailDomainBackfill emailDomainBackfill;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private TombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        addressRepository.deleteAll();
+        contactRepository.deleteAll();
+        tombstoneRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = new User();
+        user.setUsername("test");
+        user.setName("Test");
+        user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt(4)));
+        userRepository.save(user);
+
+        // id urut c1 - c5 supaya batch nya bisa di tebak
+        String[] emails = {"budhi@Example.COM", "octa@example.com", "tanpa-at", null, "budhi@mail.example.org"};
+        for (int i = 0; i < emails.length; i++) {
+            Contact contact = new Contact();
+            contact.setId("c" + (i + 1));
+            contact.setUser(user);
+            contact.setFirstName("Budhi" + i);
+            contact.setEmail(emails[i]);
+            contactRepository.save(contact);
+        }
+
+        // contact lama, di buat sebelum kolom email_domain ada
+        jdbcTemplate.update("update contacts set email_domain = null");
+    }
+
+    private String emailDomain(String id) {
+        return jdbcTemplate.queryForObject("select email_domain from contacts where id = ?", String.class, id);
+    }
+
+    @Test
+    void backfillInBatches() {
+
+        long backfilled = emailDomainBackfill.getBackfilled();
+
+        // run pertama: max-batches 2 x batch-size 2 = c1 - c4, lalu berhenti
+        emailDomainBackfill.backfill();
+        Assertions.assertEquals("c4", emailDomainBackfill.getLastId());
+        Assertions.assertFalse(emailDomainBackfill.isDone());
+        Assertions.assertEquals("example.com", emailDomain("c1"));
+        Assertions.assertEquals("example.com", emailDomain("c2"));
+        Assertions.assertNull(emailDomain("c3")); // tidak ada '@'
+        Assertions.assertNull(emailDomain("c4")); // email null
+        Assertions.assertNull(emailDomain("c5")); // belum sampai
+        Assertions.assertEquals(backfilled + 2, emailDomainBackfill.getBackfilled());
+
+        // run berikutnya lanjut dari c4, setelah id habis job selesai
+        emailDomainBackfill.backfill();
+        Assertions.assertEquals("c5", emailDomainBackfill.getLastId());
+        Assertions.assertTrue(emailDomainBackfill.isDone());
+        Assertions.assertEquals("mail.example.org", emailDomain("c5"));
+        Assertions.assertEquals(backfilled + 3, emailDomainBackfill.getBackfilled());
+
+        // job yang sudah selesai tidak jalan lagi
+        jdbcTemplate.update("update contacts set email_domain = null where id = 'c1'");
+        emailDomainBackfill.backfill();
+        Assertions.assertNull(emailDomain("c1"));
+
+    }
+
+}
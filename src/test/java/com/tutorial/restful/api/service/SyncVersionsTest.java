@@ -0,0 +1,99 @@
+package com.tutorial.restful.api.service;
+
+import com.tutorial.restful.api.entity.User;
+import com.tutorial.restful.api.repository.AddressRepository;
+import com.tutorial.restful.api.repository.ContactRepository;
+import com.tutorial.restful.api.repository.TombstoneRepository;
+import com.tutorial.restful.api.repository.UserRepository;
+import com.tutorial.restful.api.security.BCrypt;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest
+class SyncVersionsTest {
+
+    @Autowired
+    private SyncVersions syncVersions;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ContactRepository contactRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private TombstoneRepository tombstoneRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        addressRepository.deleteAll();
+        contactRepository.deleteAll();
+        tombstoneRepository.deleteAll();
+        userRepository.deleteAll();
+
+        User user = new User();
+        user.setUsername("test");
+        user.setName("Test");
+        user.setPassword(BCrypt.hashpw("rahasia", BCrypt.gensalt(4)));
+        userRepository.save(user);
+    }
+
+    @Test
+    void versionIncreasesPerTransaction() {
+
+        long first = transactionTemplate.execute(status -> syncVersions.next("test"));
+        long second = transactionTemplate.execute(status -> syncVersions.next("test"));
+        Assertions.assertEquals(first + 1, second);
+
+    }
+
+    @Test
+    void versionLockDoesNotBlockProfileUpdate() throws Exception {
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // transaksi contact yang sedang berjalan, lock sync_versions user di pegang sampai commit
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            syncVersions.next("test");
+            locked.countDown();
+            try {
+                release.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        try {
+            Assertions.assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+            // update profile tidak menyentuh sync_versions, jadi tidak menunggu transaksi di atas
+            CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+                User user = userRepository.findById("test").orElseThrow();
+                user.setName("Test Baru");
+                userRepository.save(user);
+            })).get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            writer.get(30, TimeUnit.SECONDS);
+        }
+
+        Assertions.assertEquals("Test Baru", userRepository.findById("test").orElseThrow().getName());
+
+    }
+
+}